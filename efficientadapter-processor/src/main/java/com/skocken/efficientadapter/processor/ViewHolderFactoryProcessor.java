@@ -0,0 +1,373 @@
+package com.skocken.efficientadapter.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generate a {@code ViewHolderFactory} for each view holder annotated with
+ * {@code @ViewHolderLayout} or with fields annotated with {@code @BindView}, declared or
+ * inherited, so the adapters can create it without reflection, and its views are bound once at
+ * creation.
+ */
+public class ViewHolderFactoryProcessor extends AbstractProcessor {
+
+    private static final String VIEW_HOLDER_LAYOUT =
+            "com.skocken.efficientadapter.lib.viewholder.ViewHolderLayout";
+
+    private static final String BIND_VIEW = "com.skocken.efficientadapter.lib.viewholder.BindView";
+
+    private static final String VIEW_HOLDER_FACTORY =
+            "com.skocken.efficientadapter.lib.viewholder.ViewHolderFactory";
+
+    private static final String EFFICIENT_VIEW_HOLDER =
+            "com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder";
+
+    private static final String EFFICIENT_ADAPTER =
+            "com.skocken.efficientadapter.lib.adapter.EfficientAdapter";
+
+    private static final String VIEW = "android.view.View";
+
+    private static final String FACTORY_SUFFIX = "_Factory";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // all the types, to find the view holders inheriting @BindView fields without annotation
+        return Collections.singleton("*");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> viewHolderElements = new LinkedHashSet<>();
+        TypeElement layoutAnnotation =
+                processingEnv.getElementUtils().getTypeElement(VIEW_HOLDER_LAYOUT);
+        if (layoutAnnotation != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(layoutAnnotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@ViewHolderLayout must be on a class");
+                } else {
+                    viewHolderElements.add((TypeElement) element);
+                }
+            }
+        }
+        TypeElement bindAnnotation = processingEnv.getElementUtils().getTypeElement(BIND_VIEW);
+        if (bindAnnotation != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(bindAnnotation)) {
+                if (element.getKind() != ElementKind.FIELD) {
+                    error(element, "@BindView must be on a field");
+                    continue;
+                }
+                TypeElement enclosingElement = (TypeElement) element.getEnclosingElement();
+                // an abstract view holder is bound by the factories of its subclasses
+                if (!enclosingElement.getModifiers().contains(Modifier.ABSTRACT)) {
+                    viewHolderElements.add(enclosingElement);
+                }
+            }
+            addInheritingViewHolders(ElementFilter.typesIn(roundEnv.getRootElements()),
+                    viewHolderElements);
+        }
+        for (TypeElement viewHolderElement : viewHolderElements) {
+            if (isValid(viewHolderElement)) {
+                List<VariableElement> fields = getBoundFields(viewHolderElement);
+                if (fields != null) {
+                    Integer layoutResId = getIntValue(viewHolderElement, VIEW_HOLDER_LAYOUT);
+                    generateFactory(viewHolderElement, layoutResId == null ? 0 : layoutResId,
+                            fields);
+                }
+            }
+        }
+        // the other annotations are left to the other processors
+        return false;
+    }
+
+    /**
+     * Add the concrete view holders of these types and their nested types which only inherit
+     * their fields with @BindView.
+     */
+    private void addInheritingViewHolders(Iterable<TypeElement> typeElements,
+                                          Set<TypeElement> viewHolderElements) {
+        for (TypeElement typeElement : typeElements) {
+            if (typeElement.getKind() == ElementKind.CLASS
+                    && !typeElement.getModifiers().contains(Modifier.ABSTRACT)
+                    && !viewHolderElements.contains(typeElement)
+                    && isSubtype(typeElement.asType(), EFFICIENT_VIEW_HOLDER)
+                    && hasBoundField(typeElement)) {
+                viewHolderElements.add(typeElement);
+            }
+            addInheritingViewHolders(ElementFilter.typesIn(typeElement.getEnclosedElements()),
+                    viewHolderElements);
+        }
+    }
+
+    /**
+     * @return true if the type or one of its superclasses has a field with @BindView
+     */
+    private boolean hasBoundField(TypeElement typeElement) {
+        while (typeElement != null) {
+            for (VariableElement field
+                    : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+                if (getIntValue(field, BIND_VIEW) != null) {
+                    return true;
+                }
+            }
+            typeElement = getSuperclassElement(typeElement);
+        }
+        return false;
+    }
+
+    private TypeElement getSuperclassElement(TypeElement typeElement) {
+        TypeMirror superclass = typeElement.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED
+                ? (TypeElement) processingEnv.getTypeUtils().asElement(superclass) : null;
+    }
+
+    /**
+     * @return the annotation the factory of this view holder is generated for, to name it into
+     * the errors
+     */
+    private static String getAnnotationName(TypeElement viewHolderElement) {
+        return getIntValue(viewHolderElement, VIEW_HOLDER_LAYOUT) != null
+                ? "@ViewHolderLayout" : "@BindView";
+    }
+
+    private boolean isValid(TypeElement viewHolderElement) {
+        String annotationName = getAnnotationName(viewHolderElement);
+        if (!isSubtype(viewHolderElement.asType(), EFFICIENT_VIEW_HOLDER)) {
+            error(viewHolderElement, annotationName + " must be into a subclass of "
+                    + "EfficientViewHolder");
+            return false;
+        }
+        if (viewHolderElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(viewHolderElement, annotationName + " can't be on an abstract class");
+            return false;
+        }
+        for (Element element = viewHolderElement; element instanceof TypeElement;
+             element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                error(viewHolderElement, "A view holder with " + annotationName
+                        + " can't be private");
+                return false;
+            }
+        }
+        if (isInnerClass(viewHolderElement)) {
+            TypeMirror enclosingType = viewHolderElement.getEnclosingElement().asType();
+            if (!isSubtype(enclosingType, EFFICIENT_ADAPTER)) {
+                error(viewHolderElement, "An inner view holder with " + annotationName
+                        + " must be inside an EfficientAdapter");
+                return false;
+            }
+        }
+        if (!hasViewConstructor(viewHolderElement)) {
+            error(viewHolderElement, "A view holder with " + annotationName
+                    + " needs a non private constructor with a View");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isValidField(VariableElement element) {
+        Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)
+                || modifiers.contains(Modifier.FINAL)) {
+            error(element, "A field with @BindView can't be private, static or final");
+            return false;
+        }
+        if (!isSubtype(element.asType(), VIEW)) {
+            error(element, "A field with @BindView must be a View");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the fields with @BindView of the view holder and its superclasses, or null if one
+     * of them is not accessible from the factory
+     */
+    private List<VariableElement> getBoundFields(TypeElement viewHolderElement) {
+        PackageElement packageElement =
+                processingEnv.getElementUtils().getPackageOf(viewHolderElement);
+        List<VariableElement> boundFields = new ArrayList<>();
+        TypeElement typeElement = viewHolderElement;
+        while (typeElement != null) {
+            List<VariableElement> fields =
+                    ElementFilter.fieldsIn(typeElement.getEnclosedElements());
+            for (VariableElement field : fields) {
+                if (getIntValue(field, BIND_VIEW) == null) {
+                    continue;
+                }
+                if (!isValidField(field)) {
+                    return null;
+                }
+                boolean samePackage = packageElement.equals(
+                        processingEnv.getElementUtils().getPackageOf(field));
+                if (!samePackage && !field.getModifiers().contains(Modifier.PUBLIC)) {
+                    error(viewHolderElement, "The field " + field.getSimpleName()
+                            + " with @BindView must be public to be bound from another package");
+                    return null;
+                }
+                boundFields.add(field);
+            }
+            typeElement = getSuperclassElement(typeElement);
+        }
+        return boundFields;
+    }
+
+    private boolean hasViewConstructor(TypeElement viewHolderElement) {
+        List<ExecutableElement> constructors =
+                ElementFilter.constructorsIn(viewHolderElement.getEnclosedElements());
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.size() == 1
+                    && VIEW.equals(erasure(parameters.get(0).asType()).toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the value of this annotation on this element, or null if the element doesn't have
+     * this annotation
+     */
+    private static Integer getIntValue(Element element, String annotationName) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            if (!annotationName.equals(annotationMirror.getAnnotationType().toString())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : annotationMirror.getElementValues().entrySet()) {
+                if ("value".equals(entry.getKey().getSimpleName().toString())) {
+                    return (Integer) entry.getValue().getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private void generateFactory(TypeElement viewHolderElement, int layoutResId,
+                                 List<VariableElement> boundFields) {
+        PackageElement packageElement =
+                processingEnv.getElementUtils().getPackageOf(viewHolderElement);
+        String packageName = packageElement.getQualifiedName().toString();
+        String factoryName = getFlatName(viewHolderElement) + FACTORY_SUFFIX;
+        String qualifiedFactoryName =
+                packageName.isEmpty() ? factoryName : packageName + "." + factoryName;
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated code from EfficientAdapter. Do not modify!\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("public final class ").append(factoryName)
+                .append(" implements ").append(VIEW_HOLDER_FACTORY).append(" {\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public ").append(EFFICIENT_VIEW_HOLDER).append("<?> create(\n");
+        source.append("            ").append(EFFICIENT_ADAPTER).append("<?> adapter, ")
+                .append(VIEW).append(" itemView) {\n");
+        source.append("        ").append(viewHolderElement.getQualifiedName())
+                .append(" viewHolder = ");
+        if (isInnerClass(viewHolderElement)) {
+            TypeElement adapterElement = (TypeElement) viewHolderElement.getEnclosingElement();
+            source.append("((").append(adapterElement.getQualifiedName())
+                    .append(") adapter).new ").append(viewHolderElement.getSimpleName())
+                    .append("(itemView);\n");
+        } else {
+            source.append("new ").append(viewHolderElement.getQualifiedName())
+                    .append("(itemView);\n");
+        }
+        for (VariableElement field : boundFields) {
+            source.append("        viewHolder.").append(field.getSimpleName())
+                    .append(" = (").append(erasure(field.asType()))
+                    .append(") itemView.findViewById(").append(getIntValue(field, BIND_VIEW))
+                    .append(");\n");
+        }
+        source.append("        return viewHolder;\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public int getLayoutResId() {\n");
+        source.append("        return ").append(layoutResId).append(";\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler()
+                    .createSourceFile(qualifiedFactoryName, viewHolderElement);
+            Writer writer = sourceFile.openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error(viewHolderElement, "Unable to write the factory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the name of the class into its package, with '$' between the nested classes, as
+     * {@code Class.getName()} does at runtime
+     */
+    private static String getFlatName(TypeElement typeElement) {
+        String name = typeElement.getSimpleName().toString();
+        Element enclosingElement = typeElement.getEnclosingElement();
+        while (enclosingElement instanceof TypeElement) {
+            name = enclosingElement.getSimpleName() + "$" + name;
+            enclosingElement = enclosingElement.getEnclosingElement();
+        }
+        return name;
+    }
+
+    private static boolean isInnerClass(TypeElement typeElement) {
+        return typeElement.getEnclosingElement() instanceof TypeElement
+                && !typeElement.getModifiers().contains(Modifier.STATIC);
+    }
+
+    private boolean isSubtype(TypeMirror type, String superTypeName) {
+        TypeElement superTypeElement =
+                processingEnv.getElementUtils().getTypeElement(superTypeName);
+        return superTypeElement != null
+                && processingEnv.getTypeUtils().isSubtype(erasure(type),
+                erasure(superTypeElement.asType()));
+    }
+
+    private TypeMirror erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
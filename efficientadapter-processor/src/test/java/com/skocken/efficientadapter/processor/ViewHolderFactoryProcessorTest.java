@@ -0,0 +1,299 @@
+package com.skocken.efficientadapter.processor;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ViewHolderFactoryProcessorTest {
+
+    // minimal versions of the classes of the library, to compile without Android
+    private static final String[][] LIBRARY_SOURCES = {
+            {"View", "package android.view;"
+                    + "public class View {"
+                    + "  public View findViewById(int id) { return null; }"
+                    + "}"},
+            {"TextView", "package android.widget;"
+                    + "public class TextView extends android.view.View {}"},
+            {"EfficientAdapter", "package com.skocken.efficientadapter.lib.adapter;"
+                    + "public interface EfficientAdapter<T> {}"},
+            {"EfficientViewHolder", "package com.skocken.efficientadapter.lib.viewholder;"
+                    + "public abstract class EfficientViewHolder<T> {"
+                    + "  public EfficientViewHolder(android.view.View itemView) {}"
+                    + "}"},
+            {"ViewHolderLayout", "package com.skocken.efficientadapter.lib.viewholder;"
+                    + "public @interface ViewHolderLayout { int value(); }"},
+            {"BindView", "package com.skocken.efficientadapter.lib.viewholder;"
+                    + "public @interface BindView { int value(); }"},
+            {"ViewHolderFactory", "package com.skocken.efficientadapter.lib.viewholder;"
+                    + "public interface ViewHolderFactory {"
+                    + "  EfficientViewHolder<?> create("
+                    + "      com.skocken.efficientadapter.lib.adapter.EfficientAdapter<?> adapter,"
+                    + "      android.view.View itemView);"
+                    + "  int getLayoutResId();"
+                    + "}"},
+            // item view returning sBackground for the id 1, and sTitle for the id 2
+            {"FakeItemView", "package android.view;"
+                    + "public class FakeItemView extends View {"
+                    + "  public static View sBackground;"
+                    + "  public static View sTitle;"
+                    + "  @Override public View findViewById(int id) {"
+                    + "    return id == 1 ? sBackground : id == 2 ? sTitle : null;"
+                    + "  }"
+                    + "}"},
+    };
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mOutputDir;
+
+    private DiagnosticCollector<JavaFileObject> mDiagnostics;
+
+    @Before
+    public void setUp() throws Exception {
+        mOutputDir = mTemporaryFolder.newFolder();
+        mDiagnostics = new DiagnosticCollector<>();
+    }
+
+    @Test
+    public void testGenerateFactory() throws Exception {
+        assertTrue(compile("BookViewHolder", "package com.example;"
+                + "import com.skocken.efficientadapter.lib.viewholder.*;"
+                + "@ViewHolderLayout(42)"
+                + "public class BookViewHolder extends EfficientViewHolder<String> {"
+                + "  public BookViewHolder(android.view.View itemView) { super(itemView); }"
+                + "}"));
+
+        Object factory = newFactory("com.example.BookViewHolder_Factory");
+        assertEquals(42, factory.getClass().getMethod("getLayoutResId").invoke(factory));
+        assertEquals("com.example.BookViewHolder",
+                create(factory, null, null).getClass().getName());
+    }
+
+    @Test
+    public void testGenerateFactory_innerClass() throws Exception {
+        assertTrue(compile("BookAdapter", "package com.example;"
+                + "import com.skocken.efficientadapter.lib.adapter.EfficientAdapter;"
+                + "import com.skocken.efficientadapter.lib.viewholder.*;"
+                + "public class BookAdapter implements EfficientAdapter<String> {"
+                + "  @ViewHolderLayout(42)"
+                + "  public class BookViewHolder extends EfficientViewHolder<String> {"
+                + "    public BookViewHolder(android.view.View itemView) { super(itemView); }"
+                + "    public BookAdapter getAdapter() { return BookAdapter.this; }"
+                + "  }"
+                + "}"));
+
+        Object factory = newFactory("com.example.BookAdapter$BookViewHolder_Factory");
+        Object adapter = factory.getClass().getClassLoader()
+                .loadClass("com.example.BookAdapter").newInstance();
+        Object viewHolder = create(factory, adapter, null);
+        assertEquals(adapter, viewHolder.getClass().getMethod("getAdapter").invoke(viewHolder));
+    }
+
+    @Test
+    public void testGenerateFactory_bindViews() throws Exception {
+        assertTrue(compile("BookViewHolder", "package com.example;"
+                + "import android.view.View;"
+                + "import android.widget.TextView;"
+                + "import com.skocken.efficientadapter.lib.viewholder.*;"
+                + "public class BookViewHolder extends BaseViewHolder {"
+                + "  @BindView(2) TextView mTitle;"
+                + "  public BookViewHolder(View itemView) { super(itemView); }"
+                + "}"
+                + "abstract class BaseViewHolder extends EfficientViewHolder<String> {"
+                + "  @BindView(1) View mBackground;"
+                + "  BaseViewHolder(View itemView) { super(itemView); }"
+                + "}"));
+
+        Object factory = newFactory("com.example.BookViewHolder_Factory");
+        assertEquals(0, factory.getClass().getMethod("getLayoutResId").invoke(factory));
+        ClassLoader classLoader = factory.getClass().getClassLoader();
+        final Object background = classLoader.loadClass("android.view.View").newInstance();
+        final Object title = classLoader.loadClass("android.widget.TextView").newInstance();
+        Object itemView = newItemView(classLoader, background, title);
+
+        Object viewHolder = create(factory, null, itemView);
+        assertSame(title, getField(viewHolder, "mTitle"));
+        assertSame(background, getField(viewHolder, "mBackground"));
+    }
+
+    @Test
+    public void testGenerateFactory_inheritedBindViewsOnly() throws Exception {
+        assertTrue(compile("BookViewHolder", "package com.example;"
+                + "import android.view.View;"
+                + "import com.skocken.efficientadapter.lib.viewholder.*;"
+                + "public class BookViewHolder extends BaseViewHolder {"
+                + "  public BookViewHolder(View itemView) { super(itemView); }"
+                + "}"
+                + "abstract class BaseViewHolder extends EfficientViewHolder<String> {"
+                + "  @BindView(1) View mBackground;"
+                + "  BaseViewHolder(View itemView) { super(itemView); }"
+                + "}"));
+
+        Object factory = newFactory("com.example.BookViewHolder_Factory");
+        ClassLoader classLoader = factory.getClass().getClassLoader();
+        Object background = classLoader.loadClass("android.view.View").newInstance();
+        Object itemView = newItemView(classLoader, background, null);
+
+        Object viewHolder = create(factory, null, itemView);
+        assertSame(background, getField(viewHolder, "mBackground"));
+    }
+
+    @Test
+    public void testError_inheritedBindViewsWithoutViewConstructor() throws Exception {
+        assertFalse(compile("BookViewHolder", "package com.example;"
+                + "import android.view.View;"
+                + "import com.skocken.efficientadapter.lib.viewholder.*;"
+                + "public class BookViewHolder extends BaseViewHolder {"
+                + "  public BookViewHolder() { super(null); }"
+                + "}"
+                + "abstract class BaseViewHolder extends EfficientViewHolder<String> {"
+                + "  @BindView(1) View mBackground;"
+                + "  BaseViewHolder(View itemView) { super(itemView); }"
+                + "}"));
+        assertTrue(getErrors(), getErrors().contains("A view holder with @BindView needs"));
+    }
+
+    @Test
+    public void testError_privateBindView() throws Exception {
+        assertFalse(compile("BookViewHolder", "package com.example;"
+                + "import com.skocken.efficientadapter.lib.viewholder.*;"
+                + "public class BookViewHolder extends EfficientViewHolder<String> {"
+                + "  @BindView(2) private android.widget.TextView mTitle;"
+                + "  public BookViewHolder(android.view.View itemView) { super(itemView); }"
+                + "}"));
+    }
+
+    @Test
+    public void testError_withoutViewConstructor() throws Exception {
+        assertFalse(compile("BookViewHolder", "package com.example;"
+                + "import com.skocken.efficientadapter.lib.viewholder.*;"
+                + "@ViewHolderLayout(42)"
+                + "public class BookViewHolder extends EfficientViewHolder<String> {"
+                + "  private BookViewHolder(android.view.View itemView) { super(itemView); }"
+                + "}"));
+    }
+
+    @Test
+    public void testError_notAViewHolder() throws Exception {
+        assertFalse(compile("Book", "package com.example;"
+                + "import com.skocken.efficientadapter.lib.viewholder.*;"
+                + "@ViewHolderLayout(42)"
+                + "public class Book {}"));
+    }
+
+    private boolean compile(String className, String source) throws IOException {
+        List<JavaFileObject> sources = new ArrayList<>();
+        for (String[] librarySource : LIBRARY_SOURCES) {
+            sources.add(new StringSource(librarySource[0], librarySource[1]));
+        }
+        sources.add(new StringSource(className, source));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(mDiagnostics, null, null);
+        fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singleton(mOutputDir));
+        fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singleton(mOutputDir));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, mDiagnostics,
+                null, null, sources);
+        task.setProcessors(Collections.singletonList(new ViewHolderFactoryProcessor()));
+        boolean success = task.call();
+        fileManager.close();
+        return success && !hasErrors();
+    }
+
+    private boolean hasErrors() {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : mDiagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getErrors() {
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : mDiagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append(diagnostic.getMessage(null)).append('\n');
+            }
+        }
+        return errors.toString();
+    }
+
+    private Object newFactory(String className) throws Exception {
+        ClassLoader classLoader = new URLClassLoader(new URL[]{mOutputDir.toURI().toURL()},
+                getClass().getClassLoader());
+        return classLoader.loadClass(className).newInstance();
+    }
+
+    private Object create(Object factory, Object adapter, Object itemView) throws Exception {
+        for (Method method : factory.getClass().getMethods()) {
+            if ("create".equals(method.getName())) {
+                return method.invoke(factory, adapter, itemView);
+            }
+        }
+        throw new AssertionError("No create method");
+    }
+
+    private Object newItemView(ClassLoader classLoader, Object background, Object title)
+            throws Exception {
+        Class<?> itemViewClass = classLoader.loadClass("android.view.FakeItemView");
+        itemViewClass.getField("sBackground").set(null, background);
+        itemViewClass.getField("sTitle").set(null, title);
+        return itemViewClass.newInstance();
+    }
+
+    private static Object getField(Object object, String name) throws Exception {
+        for (Class<?> type = object.getClass(); type != null; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    field.setAccessible(true);
+                    return field.get(object);
+                }
+            }
+        }
+        throw new AssertionError("No field " + name);
+    }
+
+    private static class StringSource extends SimpleJavaFileObject {
+
+        private final String mSource;
+
+        StringSource(String name, String source) {
+            super(URI.create("string:///" + name + Kind.SOURCE.extension), Kind.SOURCE);
+            mSource = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return mSource;
+        }
+    }
+}
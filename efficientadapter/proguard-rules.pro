@@ -1,3 +1,16 @@
+# Factories generated by efficientadapter-processor, found from the name of their view holder
+-keepnames @com.skocken.efficientadapter.lib.viewholder.ViewHolderLayout class * extends com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder
+-keepclasseswithmembernames class * extends com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder {
+    @com.skocken.efficientadapter.lib.viewholder.BindView <fields>;
+}
+# The view holders only inheriting their fields with @BindView, named after their factory
+-if class **_Factory implements com.skocken.efficientadapter.lib.viewholder.ViewHolderFactory
+-keepnames class <1>
+-keep class * implements com.skocken.efficientadapter.lib.viewholder.ViewHolderFactory {
+    public <init>();
+}
+
+# View holders without generated factory, created by reflection
 -keepclassmembers public class * extends com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder {
     public <init>(...);
-}
\ No newline at end of file
+}
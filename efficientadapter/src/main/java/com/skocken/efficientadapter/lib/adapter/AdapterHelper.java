@@ -1,22 +1,55 @@
 package com.skocken.efficientadapter.lib.adapter;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import androidx.annotation.Nullable;
 
 import com.skocken.efficientadapter.lib.util.AdapterUpdater;
+import com.skocken.efficientadapter.lib.util.CursorList;
+import com.skocken.efficientadapter.lib.util.EditScript;
+import com.skocken.efficientadapter.lib.util.PagedList;
+import com.skocken.efficientadapter.lib.util.ViewPathTemplate;
 import com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder;
+import com.skocken.efficientadapter.lib.viewholder.ViewHolderFactory;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 class AdapterHelper<T> {
 
+    /**
+     * Number of keys always kept by the stable ids, even if their items have been removed
+     */
+    private static final int MIN_STABLE_IDS = 64;
+
+    /**
+     * Number of objects the index can hold before dropping the positions of the removed ones
+     */
+    private static final int MIN_INDEXED_ITEMS = 64;
+
+    private static Executor sDefaultUpdateExecutor;
+
+    private static Handler sMainHandler;
+
+    private static final Map<Class<?>, ViewHolderFactory> sViewHolderFactories =
+            new HashMap<>();
+
+    private static final Map<Integer, ViewPathTemplate> sViewPathTemplates = new HashMap<>();
+
     private final Class<? extends EfficientViewHolder<? extends T>> mViewHolderClass;
 
     private final int mLayoutResId;
@@ -27,6 +60,38 @@ class AdapterHelper<T> {
 
     private EfficientAdapter.OnItemLongClickListener<T> mOnItemLongClickListener;
 
+    private Executor mUpdateExecutor;
+
+    private AdapterUpdater.ItemComparator<T> mItemComparator;
+
+    private int mUpdateGeneration;
+
+    private int mModificationCount;
+
+    private AdapterUpdater.KeyProvider<? super T> mKeyProvider;
+
+    /**
+     * Stable id of each key. The ids are never reused, so two keys never share an id.
+     */
+    private final Map<Object, Long> mStableIds = new HashMap<>();
+
+    private long mNextStableId;
+
+    /**
+     * Position of the first occurrence of each object, or null if the index is disabled. Only the
+     * positions below {@link #mIndexedCount} are valid, and only if the object is still there:
+     * the objects above are indexed again when they're looked for.
+     */
+    private Map<Object, Integer> mItemIndex;
+
+    private int mIndexedCount;
+
+    /**
+     * Whether an object has been indexed twice, then removing its first occurrence doesn't
+     * remove it from the array
+     */
+    private boolean mIndexHasDuplicates;
+
     /**
      * Constructor
      *
@@ -98,6 +163,27 @@ class AdapterHelper<T> {
         setLongClickListenerOnView(viewHolder);
     }
 
+    /**
+     * Same as {@link #onBindViewHolder(EfficientViewHolder, int, EfficientAdapter)}, with the
+     * payloads of the changes to forward to {@link EfficientViewHolder#onBindView(Object, int,
+     * List)}.
+     *
+     * @param viewHolder The ViewHolder which should be updated to represent the contents of the
+     *                   item at the given position in the data set.
+     * @param position   The position of the item within the adapter's data set.
+     * @param payloads   The payloads of the changes, empty for a full update
+     * @param adapter    The adapter source
+     */
+    public void onBindViewHolder(EfficientViewHolder<T> viewHolder, int position,
+                                 List<Object> payloads, EfficientAdapter<T> adapter) {
+        T object = get(position);
+        viewHolder.onBindView(object, position, payloads);
+        viewHolder.setAdapter(adapter);
+
+        setClickListenerOnView(viewHolder);
+        setLongClickListenerOnView(viewHolder);
+    }
+
     /**
      * Register a callback to be invoked when an item in this AbsViewHolderAdapter has
      * been long-clicked.
@@ -144,7 +230,7 @@ class AdapterHelper<T> {
      * @return true if the object is in this adapter
      */
     boolean hasItem(T object) {
-        return mObjects.contains(object);
+        return indexOf(object) != -1;
     }
 
     /**
@@ -156,7 +242,113 @@ class AdapterHelper<T> {
      * object was not found.
      */
     int indexOf(T object) {
-        return mObjects.indexOf(object);
+        if (mItemIndex == null) {
+            return mObjects.indexOf(object);
+        }
+        Integer position = mItemIndex.get(object);
+        if (position != null && position < mIndexedCount) {
+            if (isAt(position, object)) {
+                return position;
+            }
+            // the object has been removed from the array
+            mItemIndex.remove(object);
+        }
+        return indexUntil(object);
+    }
+
+    /**
+     * Index the objects not indexed yet, until the specified one is found.
+     *
+     * @return the position of the object, or -1 if it's not in the array
+     */
+    private int indexUntil(T object) {
+        int size = mObjects.size();
+        while (mIndexedCount < size) {
+            int i = mIndexedCount++;
+            T item = mObjects.get(i);
+            Integer position = mItemIndex.get(item);
+            if (position == null || position >= i || !isAt(position, item)) {
+                mItemIndex.put(item, i);
+            } else {
+                mIndexHasDuplicates = true;
+            }
+            if (object == null ? item == null : object.equals(item)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isAt(int position, Object object) {
+        Object item = mObjects.get(position);
+        return object == null ? item == null : object.equals(item);
+    }
+
+    /**
+     * Enable or disable the index of the positions of the objects. The index is updated when the
+     * objects are replaced, and built again from the first position changed when objects are
+     * added, removed or moved before the end of the array.
+     * <p>
+     * A {@link PagedList} or a {@link CursorList} can't be indexed: their items change without
+     * going through the adapter, and indexing them would load all their items.
+     *
+     * @param enabled true to enable the index
+     * @throws UnsupportedOperationException if enabled for a {@link PagedList} or a
+     *                                       {@link CursorList}
+     */
+    void setIndexEnabled(boolean enabled) {
+        if (enabled && (mObjects instanceof PagedList || mObjects instanceof CursorList)) {
+            throw new UnsupportedOperationException(
+                    "The items of a " + mObjects.getClass().getSimpleName()
+                            + " can't be indexed");
+        }
+        mItemIndex = enabled ? new HashMap<Object, Integer>() : null;
+        mIndexedCount = 0;
+        mIndexHasDuplicates = false;
+    }
+
+    /**
+     * Forget the positions indexed from the specified one, they have changed.
+     */
+    private void invalidateIndex(int position) {
+        if (mItemIndex == null || position >= mIndexedCount) {
+            return;
+        }
+        mIndexedCount = position;
+        if (mIndexedCount == 0 || mItemIndex.size() >= Math.max(MIN_INDEXED_ITEMS, 2 * size())) {
+            // drop the positions of the removed objects
+            mItemIndex.clear();
+            mIndexedCount = 0;
+            mIndexHasDuplicates = false;
+        }
+    }
+
+    /**
+     * Update the index after the replacement of the object at the specified position.
+     */
+    private void updateIndex(int position, T objectReplaced, T object) {
+        if (mItemIndex == null || position >= mIndexedCount
+                || (object == null ? objectReplaced == null : object.equals(objectReplaced))) {
+            return;
+        }
+        Integer positionReplaced = mItemIndex.get(objectReplaced);
+        if (positionReplaced != null && positionReplaced == position) {
+            if (mIndexHasDuplicates) {
+                // the object replaced can be further, look for it again
+                invalidateIndex(position);
+                return;
+            }
+            mItemIndex.remove(objectReplaced);
+        }
+        Integer previousPosition = mItemIndex.get(object);
+        if (previousPosition != null && previousPosition != position
+                && previousPosition < mIndexedCount && isAt(previousPosition, object)) {
+            mIndexHasDuplicates = true;
+            if (previousPosition < position) {
+                return;
+            }
+        }
+        mItemIndex.put(object, position);
     }
 
     /**
@@ -167,6 +359,7 @@ class AdapterHelper<T> {
     int addAll(Collection<? extends T> collection) {
         int positionOfInsert = mObjects.size();
         mObjects.addAll(collection);
+        mModificationCount++;
         return positionOfInsert;
     }
 
@@ -178,6 +371,7 @@ class AdapterHelper<T> {
     int addAll(T... items) {
         int positionOfInsert = mObjects.size();
         Collections.addAll(mObjects, items);
+        mModificationCount++;
         return positionOfInsert;
     }
 
@@ -189,6 +383,7 @@ class AdapterHelper<T> {
     int add(T object) {
         int positionOfInsert = mObjects.size();
         mObjects.add(object);
+        mModificationCount++;
         return positionOfInsert;
     }
 
@@ -200,19 +395,134 @@ class AdapterHelper<T> {
      */
     int add(int position, T object) {
         mObjects.add(position, object);
+        invalidateIndex(position);
+        mModificationCount++;
         return position;
     }
 
 
+    /**
+     * Adds the specified Collection at the specified position of the array.
+     *
+     * @param position   The position of the first object to add
+     * @param collection The Collection to add
+     */
+    int addAll(int position, Collection<? extends T> collection) {
+        mObjects.addAll(position, collection);
+        invalidateIndex(position);
+        mModificationCount++;
+        return position;
+    }
+
+    /**
+     * Replace the object at the specified position of the array.
+     *
+     * @param position The position of the object to replace
+     * @param object   The new object
+     * @return the object replaced
+     */
+    T set(int position, T object) {
+        T objectReplaced = mObjects.set(position, object);
+        updateIndex(position, objectReplaced, object);
+        mModificationCount++;
+        return objectReplaced;
+    }
+
     /**
      * Remove the object at the specified position of the array.
      *
      * @param position The position of object to add
      */
     T removeAt(int position) {
-        return mObjects.remove(position);
+        T objectRemoved = mObjects.remove(position);
+        invalidateIndex(position);
+        mModificationCount++;
+        return objectRemoved;
+    }
+
+
+    /**
+     * Remove the objects between the specified positions of the array.
+     *
+     * @param fromPosition The position of the first object to remove
+     * @param toPosition   The position after the last object to remove
+     */
+    void removeRange(int fromPosition, int toPosition) {
+        mObjects.subList(fromPosition, toPosition).clear();
+        invalidateIndex(fromPosition);
+        mModificationCount++;
     }
 
+    /**
+     * Remove the objects not accepted by the predicate, in a single pass over the array.
+     *
+     * @param predicate The predicate accepting the objects to keep
+     * @return the ranges of objects removed, as pairs of position and count. Each position is
+     * relative to the array with the previous ranges removed.
+     */
+    int[] retainAll(EfficientAdapter.Predicate<? super T> predicate) {
+        int[] removedRanges = new int[0];
+        int rangeCount = 0;
+        int size = mObjects.size();
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            T object = mObjects.get(i);
+            if (predicate.apply(object)) {
+                if (position != i) {
+                    mObjects.set(position, object);
+                }
+                position++;
+            } else if (rangeCount > 0 && removedRanges[2 * rangeCount - 2] == position) {
+                // right after the previous removed object
+                removedRanges[2 * rangeCount - 1]++;
+            } else {
+                if (2 * rangeCount == removedRanges.length) {
+                    removedRanges = Arrays.copyOf(removedRanges, Math.max(4, 4 * rangeCount));
+                }
+                removedRanges[2 * rangeCount] = position;
+                removedRanges[2 * rangeCount + 1] = 1;
+                rangeCount++;
+            }
+        }
+        if (rangeCount > 0) {
+            mObjects.subList(position, size).clear();
+            invalidateIndex(removedRanges[0]);
+            mModificationCount++;
+        }
+        return Arrays.copyOf(removedRanges, 2 * rangeCount);
+    }
+
+    /**
+     * Remove all the occurrences of the objects of the specified collection.
+     *
+     * @param collection The objects to remove
+     * @return the ranges of objects removed, see {@link #retainAll(EfficientAdapter.Predicate)}
+     */
+    int[] removeAll(Collection<?> collection) {
+        final Collection<?> removedObjects =
+                collection instanceof Set ? collection : new HashSet<>(collection);
+        return retainAll(new EfficientAdapter.Predicate<T>() {
+            @Override
+            public boolean apply(T item) {
+                return !removedObjects.contains(item);
+            }
+        });
+    }
+
+    /**
+     * Replace the objects starting at the specified position, without notification: the new
+     * objects represent the same elements.
+     *
+     * @param position The position of the first object to replace
+     * @param objects  The new objects
+     */
+    void replace(int position, List<T> objects) {
+        for (int i = 0; i < objects.size(); i++) {
+            mObjects.set(position + i, objects.get(i));
+        }
+        invalidateIndex(position);
+        mModificationCount++;
+    }
 
     /**
      * Remove the specified object of the array.
@@ -220,7 +530,7 @@ class AdapterHelper<T> {
      * @param object The object to add at the end of the array.
      */
     int remove(T object) {
-        int positionOfRemove = mObjects.indexOf(object);
+        int positionOfRemove = indexOf(object);
         if (positionOfRemove >= 0) {
             T objectRemoved = removeAt(positionOfRemove);
             if (objectRemoved != null) {
@@ -235,6 +545,8 @@ class AdapterHelper<T> {
      */
     void move(int from, int to) {
         mObjects.add(to, mObjects.remove(from));
+        invalidateIndex(Math.min(from, to));
+        mModificationCount++;
     }
 
     /**
@@ -243,11 +555,163 @@ class AdapterHelper<T> {
      * elements.
      * For example, if you have only one item which was in the previous list and which is not on the new, the
      * Updater has an opportunity to just call `remove` on this item.
-     * @param efficientAdapter the adapter to update.
+     * @param callback the callback applying the operations to the adapter.
+     * @param list the new list of item to be into this adapter.
+     */
+    void updateWith(EditScript.Callback<T> callback, List<T> list) {
+        // cancel any pending asynchronous update
+        mUpdateGeneration++;
+        AdapterUpdater.calculate(mObjects, list, mItemComparator).dispatchTo(callback);
+    }
+
+    /**
+     * Same as {@link #updateWith(EditScript.Callback, List)}, but the operations are calculated on
+     * the update executor, from a snapshot of both lists. The operations are then applied on the
+     * main thread, all at once.
+     * The result is dropped if another update has been requested in the meantime.
+     * @param callback the callback applying the operations to the adapter.
      * @param list the new list of item to be into this adapter.
      */
-    void updateWith(EfficientAdapter<T> efficientAdapter, List<T> list) {
-        new AdapterUpdater<>(efficientAdapter).update(list);
+    void updateWithAsync(EditScript.Callback<T> callback, List<T> list) {
+        updateWithAsync(callback, list, null);
+    }
+
+    /**
+     * Same as {@link #updateWithAsync(EditScript.Callback, List)}, with a task run on the main
+     * thread once all the operations have been applied.
+     * @param callback the callback applying the operations to the adapter.
+     * @param list the new list of item to be into this adapter.
+     * @param onUpdated the task to run after the update, or null
+     */
+    void updateWithAsync(final EditScript.Callback<T> callback, List<T> list,
+            @Nullable final Runnable onUpdated) {
+        final int generation = ++mUpdateGeneration;
+        final int modificationCount = mModificationCount;
+        final List<T> previousItems = new ArrayList<>(mObjects);
+        final List<T> newItems = new ArrayList<>(list);
+        final AdapterUpdater.ItemComparator<T> itemComparator = mItemComparator;
+        final Handler mainHandler = getMainHandler();
+        getUpdateExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final EditScript<T> editScript = AdapterUpdater.calculate(previousItems, newItems,
+                        itemComparator);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mUpdateGeneration) {
+                            // a newer update has been requested
+                            return;
+                        }
+                        if (modificationCount != mModificationCount) {
+                            // the list changed since the snapshot, the script is not valid anymore
+                            updateWith(callback, newItems);
+                        } else {
+                            editScript.dispatchTo(callback);
+                        }
+                        if (onUpdated != null) {
+                            onUpdated.run();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Set the comparator used by the updates to match the items and detect their changes.
+     *
+     * @param itemComparator the comparator, or null to match the items with equals and notify
+     *                       all of them
+     */
+    void setItemComparator(AdapterUpdater.ItemComparator<T> itemComparator) {
+        mItemComparator = itemComparator;
+    }
+
+    /**
+     * Set the provider of the keys the stable ids are derived from.
+     *
+     * @param keyProvider the provider of the keys, or null if the items have no stable ids
+     */
+    void setKeyProvider(AdapterUpdater.KeyProvider<? super T> keyProvider) {
+        mKeyProvider = keyProvider;
+        mStableIds.clear();
+    }
+
+    /**
+     * Get the stable id of the item at the specified position: the items with equal keys have
+     * the same id, the items with different keys never share an id.
+     *
+     * <p>
+     * A null item, like a placeholder of a {@link com.skocken.efficientadapter.lib.util.PagedList}
+     * not loaded yet, has no key: its id is derived from its position, below -1 so it's never the
+     * id of a key.
+     *
+     * @param position The position of the item
+     * @return the id of the item, or -1 if there is no key provider
+     */
+    long getItemId(int position) {
+        if (mKeyProvider == null) {
+            return -1;
+        }
+        T item = get(position);
+        if (item == null) {
+            return -2L - position;
+        }
+        Object key = mKeyProvider.getKey(item);
+        Long stableId = mStableIds.get(key);
+        if (stableId == null) {
+            if (mStableIds.size() >= Math.max(MIN_STABLE_IDS, 2 * size())) {
+                forgetRemovedKeys();
+            }
+            stableId = mNextStableId++;
+            mStableIds.put(key, stableId);
+        }
+        return stableId;
+    }
+
+    /**
+     * Forget the ids of the keys whose items are not in the array anymore, they get a new id if
+     * they come back.
+     */
+    private void forgetRemovedKeys() {
+        Set<Object> keys = new HashSet<>();
+        for (T object : mObjects) {
+            if (object != null) {
+                keys.add(mKeyProvider.getKey(object));
+            }
+        }
+        mStableIds.keySet().retainAll(keys);
+    }
+
+    /**
+     * Set the executor used to calculate the asynchronous updates.
+     * @param executor the executor to use, or null to use the default one (a single background
+     *                 thread shared by all the adapters)
+     */
+    void setUpdateExecutor(Executor executor) {
+        mUpdateExecutor = executor;
+    }
+
+    Executor getUpdateExecutor() {
+        if (mUpdateExecutor != null) {
+            return mUpdateExecutor;
+        }
+        synchronized (AdapterHelper.class) {
+            if (sDefaultUpdateExecutor == null) {
+                sDefaultUpdateExecutor = Executors.newSingleThreadExecutor();
+            }
+            return sDefaultUpdateExecutor;
+        }
+    }
+
+    static Handler getMainHandler() {
+        synchronized (AdapterHelper.class) {
+            if (sMainHandler == null) {
+                sMainHandler = new Handler(Looper.getMainLooper());
+            }
+            return sMainHandler;
+        }
     }
 
     /**
@@ -256,6 +720,8 @@ class AdapterHelper<T> {
     int clear() {
         int nbObjectRemoved = mObjects.size();
         mObjects.clear();
+        invalidateIndex(0);
+        mModificationCount++;
         return nbObjectRemoved;
     }
 
@@ -299,6 +765,10 @@ class AdapterHelper<T> {
             return null;
         }
         LayoutInflater inflater = LayoutInflater.from(context);
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            // the inflater of the context is not thread-safe, it's used by the UI thread
+            inflater = inflater.cloneInContext(context);
+        }
         return inflater.inflate(layoutResId, parent, false);
     }
 
@@ -331,6 +801,84 @@ class AdapterHelper<T> {
     EfficientViewHolder<? extends T> generateViewHolder(View v,
                                            Class<? extends EfficientViewHolder<? extends T>> viewHolderClass,
                                            EfficientAdapter<T> adapter) {
+        return (EfficientViewHolder<T>) getViewHolderFactory(viewHolderClass).create(adapter, v);
+    }
+
+    /**
+     * Get the layout declared by the view holder class with {@link
+     * com.skocken.efficientadapter.lib.viewholder.ViewHolderLayout}.
+     *
+     * @return the layout, or 0 if there is none
+     */
+    int getLayoutResId(Class<?> viewHolderClass) {
+        if (viewHolderClass == null) {
+            return 0;
+        }
+        return getViewHolderFactory(viewHolderClass).getLayoutResId();
+    }
+
+    /**
+     * Get the template of the view paths shared by all the view holders inflated from the same
+     * layout.
+     *
+     * @param layoutResId     the layout given by the adapter, or 0
+     * @param viewHolderClass the view holder class, to get its layout if the adapter doesn't give
+     *                        one
+     * @return the template of the layout, or null if the layout is unknown
+     */
+    ViewPathTemplate getViewPathTemplate(int layoutResId, Class<?> viewHolderClass) {
+        if (layoutResId == 0) {
+            layoutResId = getLayoutResId(viewHolderClass);
+            if (layoutResId == 0) {
+                return null;
+            }
+        }
+        synchronized (sViewPathTemplates) {
+            ViewPathTemplate viewPathTemplate = sViewPathTemplates.get(layoutResId);
+            if (viewPathTemplate == null) {
+                viewPathTemplate = new ViewPathTemplate();
+                sViewPathTemplates.put(layoutResId, viewPathTemplate);
+            }
+            return viewPathTemplate;
+        }
+    }
+
+    /**
+     * Get the factory to use for this view holder class, looking for it only the first time: the
+     * generated one if any, the constructor found by reflection otherwise.
+     */
+    static ViewHolderFactory getViewHolderFactory(Class<?> viewHolderClass) {
+        synchronized (sViewHolderFactories) {
+            ViewHolderFactory viewHolderFactory = sViewHolderFactories.get(viewHolderClass);
+            if (viewHolderFactory == null) {
+                viewHolderFactory = findGeneratedViewHolderFactory(viewHolderClass);
+                if (viewHolderFactory == null) {
+                    viewHolderFactory = findViewHolderConstructor(viewHolderClass);
+                }
+                sViewHolderFactories.put(viewHolderClass, viewHolderFactory);
+            }
+            return viewHolderFactory;
+        }
+    }
+
+    private static ViewHolderFactory findGeneratedViewHolderFactory(Class<?> viewHolderClass) {
+        Class<?> factoryClass;
+        try {
+            factoryClass = Class.forName(viewHolderClass.getName() + "_Factory", true,
+                                         viewHolderClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            // not annotated, or without the annotation processor
+            return null;
+        }
+        try {
+            return (ViewHolderFactory) factoryClass.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(
+                    "Impossible to instantiate " + factoryClass.getSimpleName(), e);
+        }
+    }
+
+    private static ViewHolderConstructor findViewHolderConstructor(Class<?> viewHolderClass) {
         Constructor<?>[] constructors = viewHolderClass.getDeclaredConstructors();
 
         if (constructors == null) {
@@ -345,23 +893,10 @@ class AdapterHelper<T> {
                 continue;
             }
 
-            try {
-                Object viewHolder;
-                if (isAssignableFrom(parameterTypes, View.class)) {
-                    //single or static inner class ViewHolder
-                    viewHolder = constructor.newInstance(v);
-                } else if (isAssignableFrom(parameterTypes, EfficientAdapter.class, View.class)) {
-                    // inner class ViewHolder inside EfficientAdapter
-                    viewHolder = constructor.newInstance(adapter, v);
-                } else {
-                    viewHolder = null;
-                }
-                if (viewHolder instanceof EfficientViewHolder) {
-                    return (EfficientViewHolder<T>) viewHolder;
-                }
-            } catch (Exception e) {
-                throw new RuntimeException(
-                        "Impossible to instantiate " + viewHolderClass.getSimpleName(), e);
+            if (isAssignableFrom(parameterTypes, View.class)) {
+                return new ViewHolderConstructor(constructor, false);
+            } else if (isAssignableFrom(parameterTypes, EfficientAdapter.class, View.class)) {
+                return new ViewHolderConstructor(constructor, true);
             }
         }
 
@@ -412,4 +947,45 @@ class AdapterHelper<T> {
             mOnItemLongClickListener.onLongItemClick(efficientAdapter, view, object, position);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Factory calling the constructor of a view holder class, resolved once per class.
+     */
+    static class ViewHolderConstructor implements ViewHolderFactory {
+
+        final Constructor<?> mConstructor;
+
+        /**
+         * true if the constructor takes the adapter before the view (inner class)
+         */
+        final boolean mWithAdapter;
+
+        ViewHolderConstructor(Constructor<?> constructor, boolean withAdapter) {
+            mConstructor = constructor;
+            mWithAdapter = withAdapter;
+        }
+
+        @Override
+        public EfficientViewHolder<?> create(EfficientAdapter<?> adapter, View itemView) {
+            try {
+                Object viewHolder;
+                if (mWithAdapter) {
+                    // inner class ViewHolder inside EfficientAdapter
+                    viewHolder = mConstructor.newInstance(adapter, itemView);
+                } else {
+                    //single or static inner class ViewHolder
+                    viewHolder = mConstructor.newInstance(itemView);
+                }
+                return (EfficientViewHolder<?>) viewHolder;
+            } catch (Exception e) {
+                throw new RuntimeException("Impossible to instantiate "
+                        + mConstructor.getDeclaringClass().getSimpleName(), e);
+            }
+        }
+
+        @Override
+        public int getLayoutResId() {
+            return 0;
+        }
+    }
+}
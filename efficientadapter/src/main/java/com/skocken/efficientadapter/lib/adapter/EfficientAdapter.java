@@ -82,6 +82,16 @@ public interface EfficientAdapter<T> extends AdapterUpdater.Updater<T> {
      */
     void addAll(T... items);
 
+    /**
+     * Inserts the objects in the specified collection into this {@code Adapter} at the
+     * specified location, in the order in which they are returned from the collection's iterator.
+     *
+     * @param index      the index at which to insert the objects.
+     * @param collection the collection of objects.
+     * @throws IndexOutOfBoundsException when {@code index < 0 || index > size()}
+     */
+    void addAll(int index, Collection<? extends T> collection);
+
     /**
      * Adds the specified object at the end of this {@code Adapter}.
      *
@@ -101,6 +111,16 @@ public interface EfficientAdapter<T> extends AdapterUpdater.Updater<T> {
      */
     void add(int index, T item);
 
+    /**
+     * Replaces the object at the specified location of this {@code Adapter}, and notifies its
+     * change.
+     *
+     * @param index the index of the object to replace.
+     * @param item  the new object.
+     * @throws IndexOutOfBoundsException when {@code location < 0 || location >= size()}
+     */
+    void set(int index, T item);
+
     /**
      * Removes the object at the specified location from this {@code Adapter}.
      *
@@ -109,6 +129,31 @@ public interface EfficientAdapter<T> extends AdapterUpdater.Updater<T> {
      */
     void removeAt(int index);
 
+    /**
+     * Removes the objects from {@code fromIndex}, inclusive, to {@code toIndex}, exclusive.
+     *
+     * @param fromIndex the index of the first object to remove.
+     * @param toIndex   the index after the last object to remove.
+     * @throws IndexOutOfBoundsException when {@code fromIndex < 0 || toIndex > size()
+     *                                   || fromIndex > toIndex}
+     */
+    void removeRange(int fromIndex, int toIndex);
+
+    /**
+     * Removes all the occurrences of the objects of the specified collection from this
+     * {@code Adapter}.
+     *
+     * @param collection the objects to remove.
+     */
+    void removeAll(Collection<?> collection);
+
+    /**
+     * Removes the objects of this {@code Adapter} not accepted by the predicate.
+     *
+     * @param predicate the predicate accepting the objects to keep.
+     */
+    void retainAll(Predicate<? super T> predicate);
+
     /**
      * Removes the first occurrence of the specified object from this {@code Adapter}.
      *
@@ -131,6 +176,68 @@ public interface EfficientAdapter<T> extends AdapterUpdater.Updater<T> {
      */
     void updateWith(List<T> list);
 
+    /**
+     * Same as {@link #updateWith(List)}, but the operations to apply are calculated on a
+     * background thread, from a snapshot of the current list.
+     * The operations are then applied on the main thread, all at once. If another update is
+     * requested before, this result is dropped.
+     * This method must be called from the main thread.
+     * @param list the new list of item to be into this adapter.
+     */
+    void updateWithAsync(List<T> list);
+
+    /**
+     * Set how {@link #updateWith(List)} compares the items of both lists.
+     * By default, the items are matched with equals, and all the items kept are notified as
+     * changed. With a comparator, the items with the same key are matched, and only the ones whose
+     * contents are not the same are notified.
+     * @param itemComparator the comparator, or null for the default behavior.
+     */
+    void setItemComparator(AdapterUpdater.ItemComparator<T> itemComparator);
+
+    /**
+     * Index the positions of the items, so {@link #indexOf(Object)}, {@link #hasItem(Object)} and
+     * {@link #remove(Object)} find an item in a constant time instead of comparing it with all the
+     * items before it. The items are indexed by their hashCode and equals, which must not change
+     * while they're in the adapter.
+     * <p>
+     * Replacing an item keeps the index up to date. Adding, removing or moving an item before the
+     * end of the list drops the positions after it, which are indexed again by the next search:
+     * the index is worth it when the items are searched more often than the list is reordered.
+     * A {@link com.skocken.efficientadapter.lib.util.PagedList} or a
+     * {@link com.skocken.efficientadapter.lib.util.CursorList} can't be indexed, their items
+     * change by themselves.
+     * This method must be called from the main thread.
+     * @param enabled true to index the positions, false to search the items one by one.
+     * @throws UnsupportedOperationException if enabled for the items of a {@code PagedList} or
+     *                                       a {@code CursorList}
+     */
+    void setIndexEnabled(boolean enabled);
+
+    /**
+     * Start a batch of operations: the list is modified right away, but the view is notified
+     * only once, when the batch is committed with {@link #commit()}. The batches can be nested,
+     * the view is then notified by the commit of the outermost one.
+     * <pre>
+     * adapter.beginBatch();
+     * try {
+     *     // add, remove, set, move...
+     * } finally {
+     *     adapter.commit();
+     * }
+     * </pre>
+     * This method must be called from the main thread.
+     */
+    void beginBatch();
+
+    /**
+     * End the batch started by {@link #beginBatch()}, and notify the view of all its operations
+     * at once if it's the outermost batch.
+     *
+     * @throws IllegalStateException if there is no batch in progress
+     */
+    void commit();
+
     /**
      * Removes all elements from this {@code Adapter}, leaving it empty.
      *
@@ -309,4 +416,16 @@ public interface EfficientAdapter<T> extends AdapterUpdater.Updater<T> {
          */
         void onLongItemClick(@NonNull EfficientAdapter<T> adapter, @NonNull View view, @Nullable T item, int position);
     }
+
+    /**
+     * Interface definition for a condition on the items of the adapter.
+     */
+    interface Predicate<T> {
+
+        /**
+         * @param item the item to test
+         * @return true if the item matches the condition
+         */
+        boolean apply(@Nullable T item);
+    }
 }
@@ -1,21 +1,69 @@
 package com.skocken.efficientadapter.lib.adapter;
 
+import android.content.ComponentCallbacks2;
+import android.util.SparseBooleanArray;
 import androidx.viewpager.widget.PagerAdapter;
-import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.skocken.efficientadapter.lib.util.AdapterUpdater;
+import com.skocken.efficientadapter.lib.util.EditScript;
 import com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 public class EfficientPagerAdapter<T> extends PagerAdapter implements EfficientAdapter<T> {
 
+    /**
+     * Default number of view holders kept to be reused, for each view type
+     */
+    private static final int DEFAULT_MAX_RECYCLED_VIEWS = 3;
+
     private final AdapterHelper<T> mBaseAdapter;
-    private SparseArray<List<EfficientViewHolder<T>>> mRecycleViewHolders = new SparseArray<>();
+    private final ViewHolderPool<EfficientViewHolder<T>> mRecycleViewHolders =
+            new ViewHolderPool<>(DEFAULT_MAX_RECYCLED_VIEWS);
+
+    /**
+     * View types of the view holders of the pages currently instantiated
+     */
+    private final Map<EfficientViewHolder<T>, Integer> mViewTypes = new IdentityHashMap<>();
+
+    /**
+     * Items changed by an update, whose pages must be bound again
+     */
+    private final Set<T> mChangedItems =
+            Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+
+    /**
+     * Items replaced by an update, with the new items representing the same elements
+     */
+    private final Map<T, T> mReplacedItems = new IdentityHashMap<>();
+
+    /**
+     * Positions given to a page since the last notification, so two pages never get the same one
+     */
+    private final SparseBooleanArray mClaimedPositions = new SparseBooleanArray();
+
+    private final UpdateCallback mUpdateCallback = new UpdateCallback();
+
+    private final Runnable mDispatchChanges = new Runnable() {
+        @Override
+        public void run() {
+            dispatchChanges();
+        }
+    };
+
+    private boolean mPendingNotify;
+
+    private int mBatchDepth;
 
     /**
      * Constructor
@@ -92,54 +140,201 @@ public class EfficientPagerAdapter<T> extends PagerAdapter implements EfficientA
     @Override
     public void addAll(Collection<? extends T> collection) {
         mBaseAdapter.addAll(collection);
-        notifyDataSetChanged();
+        notifyChange();
     }
 
     @Override
     public void addAll(T... items) {
         mBaseAdapter.addAll(items);
-        notifyDataSetChanged();
+        notifyChange();
+    }
+
+    @Override
+    public void addAll(int position, Collection<? extends T> collection) {
+        mBaseAdapter.addAll(position, collection);
+        notifyChange();
     }
 
     @Override
     public void add(T object) {
         mBaseAdapter.add(object);
-        notifyDataSetChanged();
+        notifyChange();
     }
 
     @Override
     public void add(int position, T item) {
         mBaseAdapter.add(position, item);
-        notifyDataSetChanged();
+        notifyChange();
+    }
+
+    @Override
+    public void set(int position, T item) {
+        T previousItem = mBaseAdapter.set(position, item);
+        // the page of the previous item shows the new one
+        mReplacedItems.put(previousItem, item);
+        mChangedItems.add(item);
+        notifyChange();
     }
 
     @Override
     public void removeAt(int position) {
         mBaseAdapter.removeAt(position);
-        notifyDataSetChanged();
+        notifyChange();
+    }
+
+    @Override
+    public void removeRange(int fromPosition, int toPosition) {
+        mBaseAdapter.removeRange(fromPosition, toPosition);
+        notifyChange();
+    }
+
+    @Override
+    public void removeAll(Collection<?> collection) {
+        if (mBaseAdapter.removeAll(collection).length > 0) {
+            notifyChange();
+        }
+    }
+
+    @Override
+    public void retainAll(Predicate<? super T> predicate) {
+        if (mBaseAdapter.retainAll(predicate).length > 0) {
+            notifyChange();
+        }
     }
 
     @Override
     public void remove(T object) {
         mBaseAdapter.remove(object);
-        notifyDataSetChanged();
+        notifyChange();
     }
 
     @Override
     public void move(int from, int to) {
         mBaseAdapter.move(from, to);
-        notifyDataSetChanged();
+        notifyChange();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The pager is notified once on commit, only the pages of the items changed or moved are
+     * bound again.
+     */
+    @Override
+    public void beginBatch() {
+        mBatchDepth++;
     }
 
+    @Override
+    public void commit() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("No batch to commit");
+        }
+        mBatchDepth--;
+        dispatchChanges();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The pager is notified once, after all the operations: only the pages of the changed items
+     * are bound again.
+     */
     @Override
     public void updateWith(List<T> list) {
-        mBaseAdapter.updateWith(this, list);
+        mBaseAdapter.updateWith(mUpdateCallback, list);
+        dispatchChanges();
+    }
+
+    @Override
+    public void updateWithAsync(List<T> list) {
+        mBaseAdapter.updateWithAsync(mUpdateCallback, list, mDispatchChanges);
+    }
+
+    private void notifyChange() {
+        mPendingNotify = true;
+        dispatchChanges();
+    }
+
+    /**
+     * Notify the pager of the changes made since the last notification, unless a batch is in
+     * progress
+     */
+    private void dispatchChanges() {
+        if (mBatchDepth > 0 || !mPendingNotify) {
+            return;
+        }
+        mPendingNotify = false;
+        try {
+            notifyDataSetChanged();
+        } finally {
+            mChangedItems.clear();
+            mReplacedItems.clear();
+        }
+    }
+
+    @Override
+    public void setItemComparator(AdapterUpdater.ItemComparator<T> itemComparator) {
+        mBaseAdapter.setItemComparator(itemComparator);
+    }
+
+    @Override
+    public void setIndexEnabled(boolean enabled) {
+        mBaseAdapter.setIndexEnabled(enabled);
+    }
+
+    /**
+     * Set the executor used by {@link #updateWithAsync(List)} to calculate the operations.
+     *
+     * @param executor the executor to use, or null to use the default background thread
+     */
+    public void setUpdateExecutor(Executor executor) {
+        mBaseAdapter.setUpdateExecutor(executor);
+    }
+
+    /**
+     * Set the number of view holders of a view type kept to be reused by the next pages, 3 by
+     * default. The oldest view holders are dropped first.
+     *
+     * @param viewType the view type
+     * @param max      the maximum number of view holders of this view type, 0 to keep none
+     */
+    public void setMaxRecycledViews(int viewType, int max) {
+        List<EfficientViewHolder<T>> dropped = new ArrayList<>();
+        mRecycleViewHolders.setMaxSize(viewType, max, dropped);
+        recycleAll(dropped);
+    }
+
+    /**
+     * Drop some of the view holders kept to be reused, according to the level of memory. Call it
+     * from {@link ComponentCallbacks2#onTrimMemory(int)}.
+     *
+     * @param level the level given to {@link ComponentCallbacks2#onTrimMemory(int)}
+     */
+    public void onTrimMemory(int level) {
+        float ratio;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            ratio = 0f;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            ratio = 0.5f;
+        } else {
+            return;
+        }
+        List<EfficientViewHolder<T>> dropped = new ArrayList<>();
+        mRecycleViewHolders.trim(ratio, dropped);
+        recycleAll(dropped);
+    }
+
+    private void recycleAll(List<EfficientViewHolder<T>> viewHolders) {
+        for (EfficientViewHolder<T> viewHolder : viewHolders) {
+            onViewRecycled(viewHolder);
+        }
     }
 
     @Override
     public void clear() {
         mBaseAdapter.clear();
-        notifyDataSetChanged();
+        notifyChange();
     }
 
     @Override
@@ -157,9 +352,23 @@ public class EfficientPagerAdapter<T> extends PagerAdapter implements EfficientA
         return mBaseAdapter.getObjects();
     }
 
+    /**
+     * Bind again the page of the item at this position, if it's instantiated. The other pages
+     * are left as they are. During a batch, the page is bound on commit.
+     */
     @Override
     public void notifyItemChanged(int i) {
-        notifyDataSetChanged();
+        if (mBatchDepth > 0) {
+            // the positions of the pages are not up to date yet
+            mChangedItems.add(get(i));
+            mPendingNotify = true;
+            return;
+        }
+        for (EfficientViewHolder<T> viewHolder : mViewTypes.keySet()) {
+            if (viewHolder.getLastBindPosition() == i) {
+                onBindViewHolder(viewHolder, i);
+            }
+        }
     }
 
     @Override
@@ -170,7 +379,13 @@ public class EfficientPagerAdapter<T> extends PagerAdapter implements EfficientA
     @Override
     public EfficientViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         View v = generateView(parent, viewType);
-        return generateViewHolder(v, viewType);
+        EfficientViewHolder<? extends T> viewHolder = generateViewHolder(v, viewType);
+        if (viewHolder != null) {
+            // all the view holders of this layout find their views the same way
+            viewHolder.setViewPathTemplate(mBaseAdapter.getViewPathTemplate(
+                    getLayoutResId(viewType), getViewHolderClass(viewType)));
+        }
+        return viewHolder;
     }
 
     @Override
@@ -180,6 +395,7 @@ public class EfficientPagerAdapter<T> extends PagerAdapter implements EfficientA
 
     @Override
     public void onViewRecycled(EfficientViewHolder holder) {
+        holder.releaseImages();
         holder.onViewRecycled();
     }
 
@@ -206,6 +422,10 @@ public class EfficientPagerAdapter<T> extends PagerAdapter implements EfficientA
     @Override
     public View generateView(ViewGroup parent, int viewType) {
         int layoutResId = getLayoutResId(viewType);
+        if (layoutResId == 0) {
+            // declared by the view holder with @ViewHolderLayout
+            layoutResId = mBaseAdapter.getLayoutResId(getViewHolderClass(viewType));
+        }
         if (layoutResId == 0) {
             mBaseAdapter.throwMissingLayoutResId(viewType);
             return null;
@@ -242,35 +462,143 @@ public class EfficientPagerAdapter<T> extends PagerAdapter implements EfficientA
         return 0;
     }
 
+    @Override
+    public void notifyDataSetChanged() {
+        // a new pass of getItemPosition over the pages
+        mClaimedPositions.clear();
+        super.notifyDataSetChanged();
+    }
+
+    /**
+     * Find the new position of the item of the page. The page is bound again if its item has
+     * moved or changed, and removed if its item isn't in the adapter anymore.
+     * <p>
+     * The item is matched by identity, and a position is given to a single page: with duplicate
+     * items, each page keeps its own position, or is removed if there are not enough of them.
+     */
+    @Override
+    public int getItemPosition(Object object) {
+        EfficientViewHolder<T> viewHolder = (EfficientViewHolder<T>) object;
+        T item = viewHolder.getObject();
+        T replacement = mReplacedItems.get(item);
+        if (replacement != null) {
+            item = replacement;
+        }
+        int lastPosition = viewHolder.getLastBindPosition();
+        int position;
+        if (isUnclaimedPosition(lastPosition, item)) {
+            position = lastPosition;
+        } else {
+            position = findUnclaimedPosition(item);
+        }
+        if (position < 0) {
+            return POSITION_NONE;
+        }
+        mClaimedPositions.put(position, true);
+        Integer viewType = mViewTypes.get(viewHolder);
+        if (viewType != null && viewType != getItemViewType(position)) {
+            return POSITION_NONE;
+        }
+        T newItem = get(position);
+        if (position != lastPosition || newItem != viewHolder.getObject()
+                || mChangedItems.contains(newItem)) {
+            onBindViewHolder(viewHolder, position);
+        }
+        return position == lastPosition ? POSITION_UNCHANGED : position;
+    }
+
+    private boolean isUnclaimedPosition(int position, T item) {
+        return position >= 0 && position < size() && get(position) == item
+                && !mClaimedPositions.get(position);
+    }
+
+    /**
+     * @return the first position of this item not given to another page, or -1 if there is none
+     */
+    private int findUnclaimedPosition(T item) {
+        int position = indexOf(item);
+        if (position < 0 || isUnclaimedPosition(position, item)) {
+            return position;
+        }
+        for (int i = 0; i < size(); i++) {
+            if (isUnclaimedPosition(i, item)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     @Override
     public void destroyItem(ViewGroup collection, int position, Object object) {
         EfficientViewHolder<T> viewHolder = (EfficientViewHolder<T>) object;
         collection.removeView(viewHolder.getView());
         onViewDetachedFromWindow(viewHolder);
 
-        int viewType = getItemViewType(position);
-        List<EfficientViewHolder<T>> viewHolders = mRecycleViewHolders.get(viewType);
-        if (viewHolders == null) {
-            viewHolders = new ArrayList<>();
+        Integer viewType = mViewTypes.remove(viewHolder);
+        if (viewType == null) {
+            viewType = getItemViewType(position);
+        }
+        EfficientViewHolder<T> dropped = mRecycleViewHolders.release(viewType, viewHolder);
+        if (dropped != null) {
+            // the pool is full, the holder won't be reused
+            onViewRecycled(dropped);
         }
-        mRecycleViewHolders.put(viewType, viewHolders);
-        viewHolders.add(viewHolder);
     }
 
     @Override
     public Object instantiateItem(ViewGroup collection, int position) {
         int viewType = getItemViewType(position);
-        List<EfficientViewHolder<T>> viewHolders = mRecycleViewHolders.get(viewType);
-        EfficientViewHolder viewHolder;
-        if (viewHolders == null || viewHolders.isEmpty()) {
+        EfficientViewHolder viewHolder = mRecycleViewHolders.acquire(viewType);
+        if (viewHolder == null) {
             viewHolder = onCreateViewHolder(collection, viewType);
         } else {
-            viewHolder = viewHolders.remove(0);
             onViewRecycled(viewHolder);
         }
         onBindViewHolder(viewHolder, position);
+        mViewTypes.put(viewHolder, viewType);
         collection.addView(viewHolder.getView(), 0);
         onViewAttachedToWindow(viewHolder);
         return viewHolder;
     }
+
+    /**
+     * Apply the operations of an update to the items, the pager is notified once at the end
+     */
+    private class UpdateCallback implements EditScript.Callback<T> {
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            for (int i = position; i < position + count; i++) {
+                mChangedItems.add(get(i));
+            }
+            mPendingNotify = true;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mBaseAdapter.removeRange(position, position + count);
+            mPendingNotify = true;
+        }
+
+        @Override
+        public void onInserted(int position, List<T> items) {
+            mBaseAdapter.addAll(position, items);
+            mPendingNotify = true;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mBaseAdapter.move(fromPosition, toPosition);
+            mPendingNotify = true;
+        }
+
+        @Override
+        public void onReplaced(int position, List<T> items) {
+            for (int i = 0; i < items.size(); i++) {
+                mReplacedItems.put(get(position + i), items.get(i));
+            }
+            mBaseAdapter.replace(position, items);
+            mPendingNotify = true;
+        }
+    }
 }
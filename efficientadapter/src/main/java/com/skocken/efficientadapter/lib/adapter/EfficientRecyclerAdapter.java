@@ -1,23 +1,49 @@
 package com.skocken.efficientadapter.lib.adapter;
 
+import android.os.Handler;
 import androidx.recyclerview.widget.RecyclerView;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.skocken.efficientadapter.lib.util.AdapterUpdater;
+import com.skocken.efficientadapter.lib.util.EditScript;
+import com.skocken.efficientadapter.lib.util.PagedList;
+import com.skocken.efficientadapter.lib.util.TextPrecomputer;
 import com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class EfficientRecyclerAdapter<T> extends RecyclerView.Adapter<EfficientViewHolder<T>>
         implements EfficientAdapter<T> {
 
+    /**
+     * Number of items around the item bound whose texts are precomputed
+     */
+    private static final int TEXT_PRECOMPUTE_DISTANCE = 5;
+
     private final AdapterHelper<T> mBaseAdapter;
 
+    private final EditScript.Callback<T> mUpdateCallback = new UpdateCallback();
+
     private boolean mNotifyOnChange = true;
 
+    /**
+     * Notifications delayed until the end of the current batch, or null if there is none
+     */
+    private NotificationBatch mBatch;
+
+    private int mBatchDepth;
+
+    private TextPrecomputer mTextPrecomputer;
+
+    private TextPrecomputer.TextProvider<? super T> mTextProvider;
+
+    private int[] mPrecomputedTextViewIds;
+
     /**
      * Constructor
      *
@@ -50,6 +76,9 @@ public class EfficientRecyclerAdapter<T> extends RecyclerView.Adapter<EfficientV
 
     /**
      * Constructor
+     * <p>
+     * With a {@link PagedList}, the items are bound as null until their page is loaded, then
+     * bound again. The adapter can't be modified.
      *
      * @param layoutResId     layout resource id to inflate for all objects in this adapter
      * @param viewHolderClass the view holder class to instantiate for all objects
@@ -58,6 +87,14 @@ public class EfficientRecyclerAdapter<T> extends RecyclerView.Adapter<EfficientV
     public EfficientRecyclerAdapter(int layoutResId,
             Class<? extends EfficientViewHolder<? extends T>> viewHolderClass, List<T> objects) {
         mBaseAdapter = new AdapterHelper<>(layoutResId, viewHolderClass, objects);
+        if (objects instanceof PagedList) {
+            ((PagedList<T>) objects).setCallback(new PagedList.Callback() {
+                @Override
+                public void onItemRangeLoaded(int position, int count) {
+                    onItemsChanged(position, count, null);
+                }
+            });
+        }
     }
 
     public void setNotifyOnChange(boolean enable) {
@@ -97,70 +134,284 @@ public class EfficientRecyclerAdapter<T> extends RecyclerView.Adapter<EfficientV
     @Override
     public void addAll(Collection<? extends T> collection) {
         int positionOfInsert = mBaseAdapter.addAll(collection);
-        if (mNotifyOnChange) {
-            notifyItemInserted(positionOfInsert);
-        }
+        onItemsInserted(positionOfInsert, size() - positionOfInsert);
     }
 
     @Override
     public void addAll(T... items) {
         int positionOfInsert = mBaseAdapter.addAll(items);
-        if (mNotifyOnChange) {
-            notifyItemInserted(positionOfInsert);
-        }
+        onItemsInserted(positionOfInsert, items.length);
+    }
+
+    @Override
+    public void addAll(int position, Collection<? extends T> collection) {
+        int sizeBefore = size();
+        mBaseAdapter.addAll(position, collection);
+        onItemsInserted(position, size() - sizeBefore);
     }
 
     @Override
     public void add(T object) {
         int positionOfInsert = mBaseAdapter.add(object);
-        if (mNotifyOnChange) {
-            notifyItemInserted(positionOfInsert);
-        }
+        onItemsInserted(positionOfInsert, 1);
     }
 
     @Override
     public void add(int position, T item) {
         mBaseAdapter.add(position, item);
-        if (mNotifyOnChange) {
-            notifyItemInserted(position);
-        }
+        onItemsInserted(position, 1);
+    }
+
+    @Override
+    public void set(int position, T item) {
+        mBaseAdapter.set(position, item);
+        onItemsChanged(position, 1, null);
     }
 
     @Override
     public void removeAt(int position) {
         T removeAt = mBaseAdapter.removeAt(position);
-        if (mNotifyOnChange && removeAt != null) {
-            notifyItemRemoved(position);
+        if (removeAt != null) {
+            onItemsRemoved(position, 1);
         }
     }
 
+    @Override
+    public void removeRange(int fromPosition, int toPosition) {
+        mBaseAdapter.removeRange(fromPosition, toPosition);
+        onItemsRemoved(fromPosition, toPosition - fromPosition);
+    }
+
+    @Override
+    public void removeAll(Collection<?> collection) {
+        onItemRangesRemoved(mBaseAdapter.removeAll(collection));
+    }
+
+    @Override
+    public void retainAll(Predicate<? super T> predicate) {
+        onItemRangesRemoved(mBaseAdapter.retainAll(predicate));
+    }
+
     @Override
     public void remove(T object) {
         int positionOfRemove = mBaseAdapter.remove(object);
-        if (mNotifyOnChange && positionOfRemove >= 0) {
-            notifyItemRemoved(positionOfRemove);
+        if (positionOfRemove >= 0) {
+            onItemsRemoved(positionOfRemove, 1);
         }
     }
 
     @Override
     public void move(int from, int to) {
         mBaseAdapter.move(from, to);
-        notifyItemMoved(from, to);
+        onItemMoved(from, to);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The RecyclerView is notified on commit, with the operations merged into ranges when
+     * possible. During the batch, use {@link #set(int, Object)} instead of
+     * {@link #notifyItemChanged(int)}, whose notification can't be delayed.
+     */
+    @Override
+    public void beginBatch() {
+        if (mBatchDepth++ == 0) {
+            mBatch = new NotificationBatch();
+        }
+    }
+
+    @Override
+    public void commit() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("No batch to commit");
+        }
+        if (--mBatchDepth == 0) {
+            NotificationBatch batch = mBatch;
+            mBatch = null;
+            batch.dispatchTo(this);
+        }
+    }
+
+    private void onItemsInserted(int position, int count) {
+        if (!mNotifyOnChange || count <= 0) {
+            return;
+        }
+        if (mBatch != null) {
+            mBatch.addInserted(position, count);
+        } else {
+            notifyItemRangeInserted(position, count);
+        }
+    }
+
+    private void onItemsRemoved(int position, int count) {
+        if (!mNotifyOnChange || count <= 0) {
+            return;
+        }
+        if (mBatch != null) {
+            mBatch.addRemoved(position, count);
+        } else {
+            notifyItemRangeRemoved(position, count);
+        }
+    }
+
+    private void onItemRangesRemoved(int[] removedRanges) {
+        for (int i = 0; i < removedRanges.length; i += 2) {
+            onItemsRemoved(removedRanges[i], removedRanges[i + 1]);
+        }
+    }
+
+    private void onItemsChanged(int position, int count, Object payload) {
+        if (!mNotifyOnChange || count <= 0) {
+            return;
+        }
+        if (mBatch != null) {
+            mBatch.addChanged(position, count, payload);
+        } else {
+            notifyItemRangeChanged(position, count, payload);
+        }
+    }
+
+    private void onItemMoved(int from, int to) {
+        if (!mNotifyOnChange) {
+            return;
+        }
+        if (mBatch != null) {
+            mBatch.addMoved(from, to);
+        } else {
+            notifyItemMoved(from, to);
+        }
     }
 
     @Override
     public void updateWith(List<T> list) {
-        mBaseAdapter.updateWith(this, list);
+        mBaseAdapter.updateWith(mUpdateCallback, list);
+    }
+
+    @Override
+    public void updateWithAsync(List<T> list) {
+        mBaseAdapter.updateWithAsync(mUpdateCallback, list);
+    }
+
+    @Override
+    public void setItemComparator(AdapterUpdater.ItemComparator<T> itemComparator) {
+        mBaseAdapter.setItemComparator(itemComparator);
+    }
+
+    @Override
+    public void setIndexEnabled(boolean enabled) {
+        mBaseAdapter.setIndexEnabled(enabled);
+    }
+
+    /**
+     * Give stable ids to the items, derived from their keys: the items with equal keys keep the
+     * same id, so the RecyclerView can keep the view holders bound to the same items when the
+     * whole list is notified as changed. The keys don't have to be numbers, two different keys
+     * never get the same id.
+     * <p>
+     * Call it before setting the adapter on the RecyclerView. An
+     * {@link AdapterUpdater.ItemComparator} can be given, its keys are then used for both.
+     *
+     * @param keyProvider the provider of the keys of the items, or null to disable the stable
+     *                    ids
+     */
+    public void setKeyProvider(AdapterUpdater.KeyProvider<? super T> keyProvider) {
+        mBaseAdapter.setKeyProvider(keyProvider);
+        setHasStableIds(keyProvider != null);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (!hasStableIds()) {
+            return RecyclerView.NO_ID;
+        }
+        return mBaseAdapter.getItemId(position);
+    }
+
+    /**
+     * Set the executor used by {@link #updateWithAsync(List)} to calculate the operations.
+     *
+     * @param executor the executor to use, or null to use the default background thread
+     */
+    public void setUpdateExecutor(Executor executor) {
+        mBaseAdapter.setUpdateExecutor(executor);
+    }
+
+    /**
+     * Precompute on a background thread the texts of the items around each item bound, so they
+     * are ready when these items are bound in turn. Call it before setting the adapter on the
+     * RecyclerView: the view holders created before don't use the precomputed texts.
+     *
+     * @param textPrecomputer the precomputer, or null to stop precomputing the texts
+     * @param textProvider    the provider of the texts of the items
+     * @param viewIds         the ids of the text views whose texts are precomputed
+     */
+    public void setTextPrecomputer(TextPrecomputer textPrecomputer,
+            TextPrecomputer.TextProvider<? super T> textProvider, int... viewIds) {
+        mTextPrecomputer = textPrecomputer;
+        mTextProvider = textProvider;
+        mPrecomputedTextViewIds = viewIds;
+    }
+
+    /**
+     * Create view holders of this view type on a background thread (the executor of the
+     * updates, see {@link #setUpdateExecutor(Executor)}), and put them into the pool of the
+     * RecyclerView: its first layout then takes them, instead of inflating the layouts one after
+     * the other on the UI thread. Call it as soon as the RecyclerView has its layout manager.
+     * <p>
+     * The layouts with views which can't be created outside of the UI thread are inflated on the
+     * UI thread. When the pool is full, its capacity for this view type is raised to keep the view
+     * holders created, it's never lowered.
+     *
+     * @param recyclerView the RecyclerView using this adapter
+     * @param viewType     the view type of the view holders
+     * @param count        the number of view holders to create
+     */
+    public void prewarmViewHolders(final RecyclerView recyclerView, final int viewType,
+            final int count) {
+        final RecyclerView.RecycledViewPool recycledViewPool = recyclerView.getRecycledViewPool();
+        final Handler mainHandler = AdapterHelper.getMainHandler();
+        mBaseAdapter.getUpdateExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean inflatableInBackground = true;
+                for (int i = 0; i < count; i++) {
+                    EfficientViewHolder<T> viewHolder = null;
+                    if (inflatableInBackground) {
+                        try {
+                            viewHolder = createViewHolder(recyclerView, viewType);
+                        } catch (RuntimeException e) {
+                            // a view of the layout needs the UI thread
+                            inflatableInBackground = false;
+                        }
+                    }
+                    final EfficientViewHolder<T> prewarmedViewHolder = viewHolder;
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            EfficientViewHolder<T> viewHolder = prewarmedViewHolder;
+                            if (viewHolder == null) {
+                                viewHolder = createViewHolder(recyclerView, viewType);
+                            }
+                            int recycledViewCount = recycledViewPool.getRecycledViewCount(viewType);
+                            recycledViewPool.putRecycledView(viewHolder);
+                            if (recycledViewPool.getRecycledViewCount(viewType)
+                                    == recycledViewCount) {
+                                // the pool is full, its capacity is the number of views it has
+                                recycledViewPool.setMaxRecycledViews(viewType,
+                                        recycledViewCount + 1);
+                                recycledViewPool.putRecycledView(viewHolder);
+                            }
+                        }
+                    });
+                }
+            }
+        });
     }
 
     @Override
     public void clear() {
         int nbObjectRemoved = mBaseAdapter.clear();
-        if (mNotifyOnChange) {
-            for (int i = nbObjectRemoved - 1; i >= 0; i--) {
-                notifyItemRemoved(i);
-            }
-        }
+        onItemsRemoved(0, nbObjectRemoved);
     }
 
     @Override
@@ -186,17 +437,62 @@ public class EfficientRecyclerAdapter<T> extends RecyclerView.Adapter<EfficientV
     @Override
     public EfficientViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         View v = generateView(parent, viewType);
-        return generateViewHolder(v, viewType);
+        EfficientViewHolder<? extends T> viewHolder = generateViewHolder(v, viewType);
+        if (viewHolder != null) {
+            // all the view holders of this layout find their views the same way
+            viewHolder.setViewPathTemplate(mBaseAdapter.getViewPathTemplate(
+                    getLayoutResId(viewType), getViewHolderClass(viewType)));
+            viewHolder.setTextPrecomputer(mTextPrecomputer);
+        }
+        return viewHolder;
     }
 
     @Override
     public void onBindViewHolder(EfficientViewHolder<T> viewHolder, int position) {
         mBaseAdapter.onBindViewHolder(viewHolder, position, this);
+        precomputeTexts(position);
+    }
+
+    @Override
+    public void onBindViewHolder(EfficientViewHolder<T> viewHolder, int position,
+                                 List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            // full bind, through the method the subclasses may override
+            onBindViewHolder(viewHolder, position);
+            return;
+        }
+        mBaseAdapter.onBindViewHolder(viewHolder, position, payloads, this);
+        precomputeTexts(position);
+    }
+
+    /**
+     * Precompute the texts of the items around this position, in both directions of scroll
+     */
+    private void precomputeTexts(int position) {
+        if (mTextPrecomputer == null) {
+            return;
+        }
+        int from = Math.max(0, position - TEXT_PRECOMPUTE_DISTANCE);
+        int to = Math.min(size(), position + TEXT_PRECOMPUTE_DISTANCE + 1);
+        for (int i = from; i < to; i++) {
+            if (i == position) {
+                continue;
+            }
+            T item = get(i);
+            if (item == null) {
+                // placeholder of an item not loaded yet
+                continue;
+            }
+            for (int viewId : mPrecomputedTextViewIds) {
+                mTextPrecomputer.precompute(viewId, mTextProvider.getText(item, viewId));
+            }
+        }
     }
 
     @Override
     public void onViewRecycled(EfficientViewHolder<T> holder) {
         super.onViewRecycled(holder);
+        holder.releaseImages();
         holder.onViewRecycled();
     }
 
@@ -230,6 +526,10 @@ public class EfficientRecyclerAdapter<T> extends RecyclerView.Adapter<EfficientV
     @Override
     public View generateView(ViewGroup parent, int viewType) {
         int layoutResId = getLayoutResId(viewType);
+        if (layoutResId == 0) {
+            // declared by the view holder with @ViewHolderLayout
+            layoutResId = mBaseAdapter.getLayoutResId(getViewHolderClass(viewType));
+        }
         if (layoutResId == 0) {
             mBaseAdapter.throwMissingLayoutResId(viewType);
             return null;
@@ -250,4 +550,38 @@ public class EfficientRecyclerAdapter<T> extends RecyclerView.Adapter<EfficientV
         // the constructor
         return mBaseAdapter.getViewHolderClass();
     }
+
+    /**
+     * Apply the operations of {@link #updateWith(List)} with ranged notifications.
+     */
+    private class UpdateCallback implements EditScript.Callback<T> {
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            onItemsChanged(position, count, payload);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mBaseAdapter.removeRange(position, position + count);
+            onItemsRemoved(position, count);
+        }
+
+        @Override
+        public void onInserted(int position, List<T> items) {
+            mBaseAdapter.addAll(position, items);
+            onItemsInserted(position, items.size());
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mBaseAdapter.move(fromPosition, toPosition);
+            onItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onReplaced(int position, List<T> items) {
+            mBaseAdapter.replace(position, items);
+        }
+    }
 }
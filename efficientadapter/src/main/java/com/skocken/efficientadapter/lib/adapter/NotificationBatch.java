@@ -0,0 +1,139 @@
+package com.skocken.efficientadapter.lib.adapter;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Notifications of the changes made to an adapter during a batch, dispatched all at once when the
+ * batch is committed.
+ * <p>
+ * Each notification is merged with the previous one when possible: consecutive insertions,
+ * removals or changes become a single range, an item inserted then removed is not notified at
+ * all, and the changes of inserted items are dropped.
+ */
+class NotificationBatch {
+
+    private static final int TYPE_CHANGED = 0;
+
+    private static final int TYPE_REMOVED = 1;
+
+    private static final int TYPE_INSERTED = 2;
+
+    private static final int TYPE_MOVED = 3;
+
+    private final List<Notification> mNotifications = new ArrayList<>();
+
+    /**
+     * @return true if there is nothing to notify
+     */
+    boolean isEmpty() {
+        return mNotifications.isEmpty();
+    }
+
+    void addInserted(int position, int count) {
+        Notification last = getLastNotification();
+        if (last != null && last.mType == TYPE_INSERTED
+                && position >= last.mPosition && position <= last.mPosition + last.mCount) {
+            last.mCount += count;
+        } else {
+            mNotifications.add(new Notification(TYPE_INSERTED, position, count));
+        }
+    }
+
+    void addRemoved(int position, int count) {
+        Notification last = getLastNotification();
+        if (last != null && last.mType == TYPE_INSERTED && position >= last.mPosition
+                && position + count <= last.mPosition + last.mCount) {
+            // the items removed have never been notified
+            last.mCount -= count;
+            if (last.mCount == 0) {
+                mNotifications.remove(mNotifications.size() - 1);
+            }
+        } else if (last != null && last.mType == TYPE_REMOVED && position == last.mPosition) {
+            last.mCount += count;
+        } else if (last != null && last.mType == TYPE_REMOVED
+                && position + count == last.mPosition) {
+            last.mPosition = position;
+            last.mCount += count;
+        } else {
+            mNotifications.add(new Notification(TYPE_REMOVED, position, count));
+        }
+    }
+
+    void addChanged(int position, int count, Object payload) {
+        Notification last = getLastNotification();
+        if (last != null && last.mType == TYPE_INSERTED && position >= last.mPosition
+                && position + count <= last.mPosition + last.mCount) {
+            // the items inserted are bound anyway
+            return;
+        }
+        if (last != null && last.mType == TYPE_CHANGED && last.mPayload == payload
+                && position <= last.mPosition + last.mCount
+                && position + count >= last.mPosition) {
+            int end = Math.max(position + count, last.mPosition + last.mCount);
+            last.mPosition = Math.min(position, last.mPosition);
+            last.mCount = end - last.mPosition;
+        } else {
+            Notification notification = new Notification(TYPE_CHANGED, position, count);
+            notification.mPayload = payload;
+            mNotifications.add(notification);
+        }
+    }
+
+    void addMoved(int fromPosition, int toPosition) {
+        Notification notification = new Notification(TYPE_MOVED, fromPosition, 1);
+        notification.mToPosition = toPosition;
+        mNotifications.add(notification);
+    }
+
+    private Notification getLastNotification() {
+        int size = mNotifications.size();
+        return size == 0 ? null : mNotifications.get(size - 1);
+    }
+
+    /**
+     * Notify the adapter of all the changes, in order
+     *
+     * @param adapter the adapter the changes have been made to
+     */
+    void dispatchTo(RecyclerView.Adapter<?> adapter) {
+        for (Notification notification : mNotifications) {
+            switch (notification.mType) {
+                case TYPE_CHANGED:
+                    adapter.notifyItemRangeChanged(notification.mPosition, notification.mCount,
+                            notification.mPayload);
+                    break;
+                case TYPE_REMOVED:
+                    adapter.notifyItemRangeRemoved(notification.mPosition, notification.mCount);
+                    break;
+                case TYPE_INSERTED:
+                    adapter.notifyItemRangeInserted(notification.mPosition, notification.mCount);
+                    break;
+                case TYPE_MOVED:
+                    adapter.notifyItemMoved(notification.mPosition, notification.mToPosition);
+                    break;
+            }
+        }
+    }
+
+    private static class Notification {
+
+        private final int mType;
+
+        private int mPosition;
+
+        private int mCount;
+
+        private int mToPosition;
+
+        private Object mPayload;
+
+        Notification(int type, int position, int count) {
+            mType = type;
+            mPosition = position;
+            mCount = count;
+        }
+    }
+}
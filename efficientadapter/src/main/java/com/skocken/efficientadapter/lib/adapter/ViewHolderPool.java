@@ -0,0 +1,110 @@
+package com.skocken.efficientadapter.lib.adapter;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * View holders not displayed anymore, by view type, kept to be reused by the next items.
+ * Each view type keeps a bounded number of view holders: the one released last is taken first
+ * (its views are the most likely to still be in the CPU caches), and the one released first is
+ * dropped when the pool is full.
+ *
+ * @param <VH> the type of the view holders
+ */
+class ViewHolderPool<VH> {
+
+    private final SparseArray<ArrayDeque<VH>> mViewHolders = new SparseArray<>();
+
+    private final SparseIntArray mMaxSizes = new SparseIntArray();
+
+    private final int mDefaultMaxSize;
+
+    /**
+     * @param defaultMaxSize the number of view holders kept for each view type, unless set
+     *                       otherwise with {@link #setMaxSize(int, int, List)}
+     */
+    ViewHolderPool(int defaultMaxSize) {
+        mDefaultMaxSize = defaultMaxSize;
+    }
+
+    /**
+     * @param viewType the view type
+     * @return the view holder released last of this view type, or null if there is none
+     */
+    VH acquire(int viewType) {
+        ArrayDeque<VH> viewHolders = mViewHolders.get(viewType);
+        return viewHolders == null ? null : viewHolders.pollLast();
+    }
+
+    /**
+     * Put a view holder into the pool.
+     *
+     * @param viewType   the view type of the view holder
+     * @param viewHolder the view holder not displayed anymore
+     * @return the view holder dropped from the pool to make room, which won't be reused, or null
+     */
+    VH release(int viewType, VH viewHolder) {
+        int maxSize = getMaxSize(viewType);
+        if (maxSize <= 0) {
+            return viewHolder;
+        }
+        ArrayDeque<VH> viewHolders = mViewHolders.get(viewType);
+        if (viewHolders == null) {
+            viewHolders = new ArrayDeque<>();
+            mViewHolders.put(viewType, viewHolders);
+        }
+        viewHolders.addLast(viewHolder);
+        return viewHolders.size() > maxSize ? viewHolders.pollFirst() : null;
+    }
+
+    /**
+     * @param viewType the view type
+     * @return the number of view holders of this view type kept into the pool
+     */
+    int size(int viewType) {
+        ArrayDeque<VH> viewHolders = mViewHolders.get(viewType);
+        return viewHolders == null ? 0 : viewHolders.size();
+    }
+
+    int getMaxSize(int viewType) {
+        return mMaxSizes.get(viewType, mDefaultMaxSize);
+    }
+
+    /**
+     * Set the number of view holders kept for a view type, dropping the oldest ones if there are
+     * more.
+     *
+     * @param viewType the view type
+     * @param maxSize  the maximum number of view holders of this view type
+     * @param dropped  the list receiving the view holders dropped from the pool
+     */
+    void setMaxSize(int viewType, int maxSize, List<VH> dropped) {
+        mMaxSizes.put(viewType, maxSize);
+        ArrayDeque<VH> viewHolders = mViewHolders.get(viewType);
+        if (viewHolders != null) {
+            trim(viewHolders, maxSize, dropped);
+        }
+    }
+
+    /**
+     * Drop the oldest view holders of each view type, to keep at most a fraction of them.
+     *
+     * @param ratio   the fraction of the view holders to keep, from 0 (drop all) to 1
+     * @param dropped the list receiving the view holders dropped from the pool
+     */
+    void trim(float ratio, List<VH> dropped) {
+        for (int i = 0; i < mViewHolders.size(); i++) {
+            ArrayDeque<VH> viewHolders = mViewHolders.valueAt(i);
+            trim(viewHolders, (int) (viewHolders.size() * ratio), dropped);
+        }
+    }
+
+    private static <VH> void trim(ArrayDeque<VH> viewHolders, int maxSize, List<VH> dropped) {
+        while (viewHolders.size() > Math.max(maxSize, 0)) {
+            dropped.add(viewHolders.pollFirst());
+        }
+    }
+}
@@ -1,6 +1,13 @@
 package com.skocken.efficientadapter.lib.util;
 
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Updater helper for the Adapter.
@@ -11,14 +18,74 @@ public class AdapterUpdater<T> {
 
     private final Updater<T> mUpdater;
 
+    private final Algorithm mAlgorithm;
+
     public AdapterUpdater(Updater<T> updater) {
+        this(updater, Algorithm.HASH_INDEX);
+    }
+
+    /**
+     * @param updater   the target of the update
+     * @param algorithm the algorithm used to compute the operations to apply on the updater
+     */
+    public AdapterUpdater(Updater<T> updater, Algorithm algorithm) {
         mUpdater = updater;
+        mAlgorithm = algorithm;
     }
 
     public void update(List<T> items) {
-        notifyUntouchedItems(items);
-        removeUseless(items);
-        addMissingAndReorder(items);
+        if (mAlgorithm == Algorithm.LINEAR_SCAN) {
+            notifyUntouchedItems(items);
+            removeUseless(items);
+            addMissingAndReorder(items);
+        } else {
+            int size = mUpdater.size();
+            List<T> previousItems = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                previousItems.add(mUpdater.get(i));
+            }
+            calculateWithHashIndex(previousItems, items, null).dispatchTo(mUpdater);
+        }
+    }
+
+    /**
+     * Calculate the operations to go from a list of items to another one, without applying them.
+     * This method doesn't touch any adapter, so it can be called from a background thread, as long
+     * as both lists are not modified during the call.
+     *
+     * @param previousItems the items currently into the adapter
+     * @param newItems      the new items to be into the adapter
+     * @return the script to dispatch to the adapter
+     */
+    public static <T> EditScript<T> calculate(List<T> previousItems, List<T> newItems) {
+        return calculate(previousItems, newItems, Algorithm.HASH_INDEX);
+    }
+
+    /**
+     * Same as {@link #calculate(List, List)} with a specific algorithm.
+     */
+    public static <T> EditScript<T> calculate(List<T> previousItems, List<T> newItems,
+                                              Algorithm algorithm) {
+        if (algorithm == Algorithm.LINEAR_SCAN) {
+            ScriptUpdater<T> scriptUpdater = new ScriptUpdater<>(previousItems);
+            new AdapterUpdater<>(scriptUpdater, algorithm).update(newItems);
+            return scriptUpdater.getEditScript();
+        } else {
+            return calculateWithHashIndex(previousItems, newItems, null);
+        }
+    }
+
+    /**
+     * Same as {@link #calculate(List, List)}, but the items are matched with the
+     * {@link ItemComparator}: the items with the same key are considered as the same element, and
+     * only the ones whose contents changed are notified.
+     *
+     * @param itemComparator the comparator of the items, or null to match the items with
+     *                       {@link Object#equals(Object)} and notify all of them
+     */
+    public static <T> EditScript<T> calculate(List<T> previousItems, List<T> newItems,
+                                              ItemComparator<T> itemComparator) {
+        return calculateWithHashIndex(previousItems, newItems, itemComparator);
     }
 
     private void notifyUntouchedItems(List<T> items) {
@@ -78,6 +145,314 @@ public class AdapterUpdater<T> {
         return indexInPrevious;
     }
 
+    /**
+     * Same operations as the {@link Algorithm#LINEAR_SCAN}, but the positions are computed from
+     * an index built once per update instead of scanning the list for every item.
+     * <p>
+     * With an {@link ItemComparator}, the items are matched by key, and only the items whose
+     * contents changed are notified, at their final position.
+     */
+    private static <T> EditScript<T> calculateWithHashIndex(List<T> previousItems,
+                                                            List<T> newItems,
+                                                            ItemComparator<T> itemComparator) {
+        EditScript<T> editScript = new EditScript<>();
+        int size = previousItems.size();
+        Set<Object> newKeys = new HashSet<>(newItems.size());
+        for (T newItem : newItems) {
+            newKeys.add(getKey(itemComparator, newItem));
+        }
+
+        if (itemComparator == null) {
+            // notify untouched items
+            for (int i = 0; i < size; i++) {
+                if (newKeys.contains(previousItems.get(i))) {
+                    editScript.addChanged(i);
+                }
+            }
+        }
+
+        // remove useless, the slots are the items kept, in their current order
+        List<T> slots = new ArrayList<>(size);
+        int nbRemoved = 0;
+        for (int i = 0; i < size; i++) {
+            T objectInList = previousItems.get(i);
+            if (newKeys.contains(getKey(itemComparator, objectInList))) {
+                slots.add(objectInList);
+            } else {
+                editScript.addRemoved(i - nbRemoved);
+                nbRemoved++;
+            }
+        }
+
+        Map<Object, SlotQueue> slotsByKey = new HashMap<>();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Object key = getKey(itemComparator, slots.get(slot));
+            SlotQueue slotQueue = slotsByKey.get(key);
+            if (slotQueue == null) {
+                slotQueue = new SlotQueue();
+                slotsByKey.put(key, slotQueue);
+            }
+            slotQueue.add(slot);
+        }
+
+        // add missing and reorder: the items before indexInNew are already in their final
+        // position, the remaining slots keep their relative order after it.
+        EditScript<T> replacedScript = new EditScript<>();
+        EditScript<T> changedScript = new EditScript<>();
+        RemainingSlots remainingSlots = new RemainingSlots(slots.size());
+        for (int indexInNew = 0; indexInNew < newItems.size(); indexInNew++) {
+            T object = newItems.get(indexInNew);
+            SlotQueue slotQueue = slotsByKey.get(getKey(itemComparator, object));
+
+            if (slotQueue == null || slotQueue.isEmpty()) {
+                // not present, or duplicate, add it
+                editScript.addInserted(indexInNew, object);
+            } else {
+                // same choice as getIndexInPrevious: the first occurrence, or the last one if
+                // this object is already placed before (duplicate)
+                int slot = slotQueue.mPlaced ? slotQueue.pollLast() : slotQueue.pollFirst();
+                int indexInPrevious = indexInNew + remainingSlots.countBefore(slot);
+                remainingSlots.remove(slot);
+                if (indexInPrevious != indexInNew) {
+                    editScript.addMoved(indexInPrevious, indexInNew);
+                }
+                if (itemComparator != null) {
+                    T previousObject = slots.get(slot);
+                    if (previousObject != object) {
+                        replacedScript.addReplaced(indexInNew, object);
+                    }
+                    if (!itemComparator.areContentsTheSame(previousObject, object)) {
+                        changedScript.addChanged(indexInNew,
+                                itemComparator.getChangePayload(previousObject, object));
+                    }
+                }
+            }
+            if (slotQueue != null) {
+                slotQueue.mPlaced = true;
+            }
+        }
+        // the positions before the last indexInNew don't move anymore
+        editScript.append(replacedScript);
+        editScript.append(changedScript);
+        return editScript;
+    }
+
+    private static <T> Object getKey(ItemComparator<T> itemComparator, T item) {
+        if (itemComparator == null || item == null) {
+            // the null items are matched together
+            return item;
+        }
+        return itemComparator.getKey(item);
+    }
+
+    /**
+     * Algorithm used by {@link #update(List)} to compute the operations to apply.
+     */
+    public enum Algorithm {
+
+        /**
+         * Original algorithm: look for each item with {@link List#indexOf(Object)}, O(n^2).
+         */
+        LINEAR_SCAN,
+
+        /**
+         * Index the positions of the items into a hash map once per update, O(n log n).
+         */
+        HASH_INDEX
+    }
+
+    /**
+     * Provide the identity of the items.
+     */
+    public interface KeyProvider<T> {
+
+        /**
+         * Get the identity of an item: the items with equal keys represent the same element (the
+         * key must implement {@link Object#equals(Object)} and {@link Object#hashCode()}).
+         *
+         * @param item the item, never null: the null items, like the placeholders of a
+         *             {@link PagedList}, are matched together by the updates, and their stable
+         *             ids are derived from their position
+         * @return the key of this item
+         */
+        Object getKey(@NonNull T item);
+    }
+
+    /**
+     * Compare the items of two lists during an update: the items of the previous and the new list
+     * with equal keys represent the same element.
+     */
+    public interface ItemComparator<T> extends KeyProvider<T> {
+
+        /**
+         * Called only for items with the same key, to know if the view of this element needs to
+         * be updated.
+         *
+         * @param previousItem the item into the previous list
+         * @param newItem      the item into the new list
+         * @return true if both items are displayed the same way
+         */
+        boolean areContentsTheSame(T previousItem, T newItem);
+
+        /**
+         * Called only for items with the same key whose contents are not the same, to describe
+         * what changed. The payload is given to
+         * {@link com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder#updateView(
+         * android.content.Context, Object, List)} to update only a part of the view.
+         *
+         * @param previousItem the item into the previous list
+         * @param newItem      the item into the new list
+         * @return the description of the change, or null to update the whole view
+         */
+        Object getChangePayload(T previousItem, T newItem);
+    }
+
+    /**
+     * Ordered slots of one item (more than one slot in case of duplicates).
+     */
+    private static class SlotQueue {
+
+        private int[] mSlots = new int[1];
+
+        private int mFirst;
+
+        private int mEnd;
+
+        boolean mPlaced;
+
+        void add(int slot) {
+            if (mEnd == mSlots.length) {
+                int[] slots = new int[mSlots.length * 2];
+                System.arraycopy(mSlots, 0, slots, 0, mEnd);
+                mSlots = slots;
+            }
+            mSlots[mEnd++] = slot;
+        }
+
+        boolean isEmpty() {
+            return mFirst == mEnd;
+        }
+
+        int pollFirst() {
+            return mSlots[mFirst++];
+        }
+
+        int pollLast() {
+            return mSlots[--mEnd];
+        }
+    }
+
+    /**
+     * Fenwick tree counting the slots not placed yet, to know the current position of a slot.
+     */
+    private static class RemainingSlots {
+
+        private final int[] mTree;
+
+        RemainingSlots(int size) {
+            mTree = new int[size + 1];
+            for (int i = 1; i <= size; i++) {
+                mTree[i]++;
+                int parent = i + (i & -i);
+                if (parent <= size) {
+                    mTree[parent] += mTree[i];
+                }
+            }
+        }
+
+        void remove(int slot) {
+            for (int i = slot + 1; i < mTree.length; i += i & -i) {
+                mTree[i]--;
+            }
+        }
+
+        int countBefore(int slot) {
+            int count = 0;
+            for (int i = slot; i > 0; i -= i & -i) {
+                count += mTree[i];
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Updater applying the operations on a copy of the list, and recording them into a script.
+     * A removal directly followed by the insertion of the same item is recorded as a move.
+     */
+    private static class ScriptUpdater<T> implements Updater<T> {
+
+        private final List<T> mObjects;
+
+        private final EditScript<T> mEditScript = new EditScript<>();
+
+        private int mPendingRemovePosition = -1;
+
+        private T mPendingRemoveItem;
+
+        ScriptUpdater(List<T> objects) {
+            mObjects = new ArrayList<>(objects);
+        }
+
+        EditScript<T> getEditScript() {
+            flushPendingRemove();
+            return mEditScript;
+        }
+
+        private void flushPendingRemove() {
+            if (mPendingRemovePosition != -1) {
+                mEditScript.addRemoved(mPendingRemovePosition);
+                mPendingRemovePosition = -1;
+                mPendingRemoveItem = null;
+            }
+        }
+
+        @Override
+        public int size() {
+            return mObjects.size();
+        }
+
+        @Override
+        public T get(int index) {
+            return mObjects.get(index);
+        }
+
+        @Override
+        public List<T> getObjects() {
+            return new ArrayList<>(mObjects);
+        }
+
+        @Override
+        public void notifyItemChanged(int i) {
+            flushPendingRemove();
+            mEditScript.addChanged(i);
+        }
+
+        @Override
+        public void removeAt(int i) {
+            flushPendingRemove();
+            mPendingRemoveItem = mObjects.remove(i);
+            mPendingRemovePosition = i;
+        }
+
+        @Override
+        public int indexOf(T item) {
+            return mObjects.indexOf(item);
+        }
+
+        @Override
+        public void add(int i, T item) {
+            mObjects.add(i, item);
+            if (mPendingRemovePosition != -1 && mPendingRemoveItem == item) {
+                mEditScript.addMoved(mPendingRemovePosition, i);
+                mPendingRemovePosition = -1;
+                mPendingRemoveItem = null;
+            } else {
+                flushPendingRemove();
+                mEditScript.addInserted(i, item);
+            }
+        }
+    }
+
     public interface Updater<T> {
 
         int size();
@@ -0,0 +1,415 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link ImageLoader} decoding the images on a background executor, downsampled to the size of
+ * the view, and keeping them into a memory cache bounded by a number of bytes.
+ * <p>
+ * Until its image is loaded, a view has no image. Share one loader between all the view holders
+ * showing the same images, to share its cache.
+ * <p>
+ * With a {@link BitmapPool}, the images are decoded into the memory of the bitmaps not used
+ * anymore: the ones removed from the cache, once they are not displayed by any view.
+ */
+public class AsyncImageLoader implements ImageLoader {
+
+    private static final String TAG = "AsyncImageLoader";
+
+    private static final int DEFAULT_THREAD_COUNT = 2;
+
+    private static Executor sDefaultExecutor;
+
+    private final LruCache<String, Bitmap> mCache;
+
+    private final Executor mExecutor;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Loads in progress by view, only used on the UI thread
+     */
+    private final Map<ImageView, LoadTask> mLoadTasks = new WeakHashMap<>();
+
+    /**
+     * Bitmaps set by this loader on each view, only used on the UI thread
+     */
+    private final Map<ImageView, Bitmap> mShownBitmaps = new WeakHashMap<>();
+
+    /**
+     * Number of views displaying each bitmap (or about to display it), guarded by itself
+     */
+    private final Map<Bitmap, Integer> mActiveBitmaps = new IdentityHashMap<>();
+
+    /**
+     * Bitmaps removed from the cache while they were displayed, guarded by mActiveBitmaps
+     */
+    private final Set<Bitmap> mRemovedBitmaps =
+            Collections.newSetFromMap(new IdentityHashMap<Bitmap, Boolean>());
+
+    private volatile BitmapPool mBitmapPool;
+
+    /**
+     * Loader with a cache of an eighth of the memory available to the application, decoding the
+     * images with two background threads shared by all the loaders
+     */
+    public AsyncImageLoader() {
+        this((int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @param maxCacheSize the maximum number of bytes of the bitmaps kept into the cache
+     */
+    public AsyncImageLoader(int maxCacheSize) {
+        this(maxCacheSize, null);
+    }
+
+    /**
+     * @param maxCacheSize the maximum number of bytes of the bitmaps kept into the cache
+     * @param executor     the executor decoding the images, or null to use the default one (two
+     *                     background threads shared by all the loaders)
+     */
+    public AsyncImageLoader(int maxCacheSize, @Nullable Executor executor) {
+        mCache = new LruCache<String, Bitmap>(maxCacheSize) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue,
+                    Bitmap newValue) {
+                if (oldValue != newValue) {
+                    onRemovedFromCache(oldValue);
+                }
+            }
+        };
+        mExecutor = executor == null ? getDefaultExecutor() : executor;
+    }
+
+    private static Executor getDefaultExecutor() {
+        synchronized (AsyncImageLoader.class) {
+            if (sDefaultExecutor == null) {
+                sDefaultExecutor = Executors.newFixedThreadPool(DEFAULT_THREAD_COUNT);
+            }
+            return sDefaultExecutor;
+        }
+    }
+
+    /**
+     * Reuse the bitmaps not used anymore to decode the next images.
+     *
+     * @param bitmapPool the pool, or null to let the garbage collector free these bitmaps
+     */
+    public void setBitmapPool(@Nullable BitmapPool bitmapPool) {
+        mBitmapPool = bitmapPool;
+    }
+
+    @Override
+    public void load(ImageView imageView, @Nullable Uri uri) {
+        cancel(imageView);
+        if (uri == null) {
+            clear(imageView);
+            return;
+        }
+        int[] targetSize = getTargetSize(imageView);
+        String key = uri + "#" + targetSize[0] + "x" + targetSize[1];
+        Bitmap bitmap = acquireFromCache(key);
+        if (bitmap != null) {
+            show(imageView, bitmap);
+            return;
+        }
+        // never show the image of the previous item meanwhile
+        clear(imageView);
+        LoadTask loadTask = new LoadTask(imageView, uri, key, targetSize[0], targetSize[1]);
+        mLoadTasks.put(imageView, loadTask);
+        mExecutor.execute(loadTask);
+    }
+
+    @Override
+    public boolean cancel(ImageView imageView) {
+        LoadTask loadTask = mLoadTasks.remove(imageView);
+        if (loadTask == null) {
+            return false;
+        }
+        loadTask.mCancelled = true;
+        return true;
+    }
+
+    @Override
+    public void release(ImageView imageView) {
+        cancel(imageView);
+        clear(imageView);
+    }
+
+    /**
+     * Remove all the images from the cache
+     */
+    public void clearCache() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Decode the image of the uri, on a background thread. Override it to load the images from
+     * another source.
+     *
+     * @param context      the application context
+     * @param uri          the uri of the image
+     * @param targetWidth  the width of the view, the image can be downsampled to it
+     * @param targetHeight the height of the view, the image can be downsampled to it
+     * @return the image, or null if it can't be loaded
+     * @throws IOException if the image can't be read
+     */
+    @Nullable
+    protected Bitmap decodeBitmap(@NonNull Context context, @NonNull Uri uri, int targetWidth,
+            int targetHeight) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decodeStream(context, uri, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight,
+                targetWidth, targetHeight);
+        // mutable to be reusable once not used anymore
+        options.inMutable = true;
+        BitmapPool bitmapPool = mBitmapPool;
+        if (bitmapPool == null) {
+            return decodeStream(context, uri, options);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT || options.inSampleSize == 1) {
+            int sampleSize = options.inSampleSize;
+            options.inBitmap = bitmapPool.get((options.outWidth + sampleSize - 1) / sampleSize,
+                    (options.outHeight + sampleSize - 1) / sampleSize, options.inPreferredConfig);
+        }
+        try {
+            return decodeStream(context, uri, options);
+        } catch (IllegalArgumentException e) {
+            if (options.inBitmap == null) {
+                throw e;
+            }
+            // the image can't be decoded into this bitmap
+            options.inBitmap = null;
+            return decodeStream(context, uri, options);
+        }
+    }
+
+    private static Bitmap decodeStream(Context context, Uri uri, BitmapFactory.Options options)
+            throws IOException {
+        InputStream inputStream = context.getContentResolver().openInputStream(uri);
+        if (inputStream == null) {
+            return null;
+        }
+        try {
+            return BitmapFactory.decodeStream(inputStream, null, options);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * @return the largest power of 2 dividing the size of the image, while keeping it at least as
+     * large as the target size
+     */
+    static int calculateInSampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int inSampleSize = 1;
+        while (width / (inSampleSize * 2) >= targetWidth
+                && height / (inSampleSize * 2) >= targetHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * @return the size of the view, or the size it will have if it's not laid out yet (the size
+     * of the screen if unknown)
+     */
+    private static int[] getTargetSize(ImageView imageView) {
+        DisplayMetrics displayMetrics = imageView.getResources().getDisplayMetrics();
+        ViewGroup.LayoutParams layoutParams = imageView.getLayoutParams();
+        int width = imageView.getWidth();
+        if (width <= 0 && layoutParams != null) {
+            width = layoutParams.width;
+        }
+        if (width <= 0) {
+            width = displayMetrics.widthPixels;
+        }
+        int height = imageView.getHeight();
+        if (height <= 0 && layoutParams != null) {
+            height = layoutParams.height;
+        }
+        if (height <= 0) {
+            height = displayMetrics.heightPixels;
+        }
+        return new int[]{width, height};
+    }
+
+    /**
+     * Set an acquired bitmap on the view, and release the previous one
+     */
+    private void show(ImageView imageView, Bitmap bitmap) {
+        imageView.setImageBitmap(bitmap);
+        Bitmap previousBitmap = mShownBitmaps.put(imageView, bitmap);
+        if (previousBitmap != null) {
+            releaseBitmap(previousBitmap);
+        }
+    }
+
+    /**
+     * Remove the image of the view, and release it
+     */
+    private void clear(ImageView imageView) {
+        imageView.setImageDrawable(null);
+        Bitmap previousBitmap = mShownBitmaps.remove(imageView);
+        if (previousBitmap != null) {
+            releaseBitmap(previousBitmap);
+        }
+    }
+
+    /**
+     * @return the bitmap of the cache, acquired to be displayed by a view, or null
+     */
+    private Bitmap acquireFromCache(String key) {
+        synchronized (mActiveBitmaps) {
+            Bitmap bitmap = mCache.get(key);
+            if (bitmap != null) {
+                acquireBitmap(bitmap);
+            }
+            return bitmap;
+        }
+    }
+
+    private void acquireBitmap(Bitmap bitmap) {
+        synchronized (mActiveBitmaps) {
+            Integer count = mActiveBitmaps.get(bitmap);
+            mActiveBitmaps.put(bitmap, count == null ? 1 : count + 1);
+        }
+    }
+
+    private void releaseBitmap(Bitmap bitmap) {
+        synchronized (mActiveBitmaps) {
+            Integer count = mActiveBitmaps.get(bitmap);
+            if (count == null) {
+                return;
+            }
+            if (count > 1) {
+                mActiveBitmaps.put(bitmap, count - 1);
+                return;
+            }
+            mActiveBitmaps.remove(bitmap);
+            if (mRemovedBitmaps.remove(bitmap)) {
+                recycleBitmap(bitmap);
+            }
+        }
+    }
+
+    private void onRemovedFromCache(Bitmap bitmap) {
+        synchronized (mActiveBitmaps) {
+            if (mActiveBitmaps.containsKey(bitmap)) {
+                // reusable once not displayed anymore
+                mRemovedBitmaps.add(bitmap);
+            } else {
+                recycleBitmap(bitmap);
+            }
+        }
+    }
+
+    private void recycleBitmap(Bitmap bitmap) {
+        BitmapPool bitmapPool = mBitmapPool;
+        if (bitmapPool != null) {
+            bitmapPool.put(bitmap);
+        }
+    }
+
+    private class LoadTask implements Runnable {
+
+        private final WeakReference<ImageView> mImageViewRef;
+
+        private final Context mContext;
+
+        private final Uri mUri;
+
+        private final String mKey;
+
+        private final int mTargetWidth;
+
+        private final int mTargetHeight;
+
+        private volatile boolean mCancelled;
+
+        LoadTask(ImageView imageView, Uri uri, String key, int targetWidth, int targetHeight) {
+            mImageViewRef = new WeakReference<>(imageView);
+            mContext = imageView.getContext().getApplicationContext();
+            mUri = uri;
+            mKey = key;
+            mTargetWidth = targetWidth;
+            mTargetHeight = targetHeight;
+        }
+
+        @Override
+        public void run() {
+            if (mCancelled) {
+                return;
+            }
+            Bitmap bitmap = acquireFromCache(mKey);
+            if (bitmap == null) {
+                try {
+                    bitmap = decodeBitmap(mContext, mUri, mTargetWidth, mTargetHeight);
+                } catch (IOException | RuntimeException e) {
+                    Log.w(TAG, "Unable to load the image " + mUri, e);
+                }
+                if (bitmap != null) {
+                    // acquired first, to not be reused if it doesn't fit into the cache
+                    acquireBitmap(bitmap);
+                    mCache.put(mKey, bitmap);
+                }
+            }
+            final Bitmap result = bitmap;
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(result);
+                }
+            });
+        }
+
+        private void deliver(Bitmap bitmap) {
+            ImageView imageView = mImageViewRef.get();
+            if (mCancelled || imageView == null || mLoadTasks.get(imageView) != this) {
+                if (bitmap != null) {
+                    releaseBitmap(bitmap);
+                }
+                return;
+            }
+            mLoadTasks.remove(imageView);
+            if (bitmap != null) {
+                show(imageView, bitmap);
+            }
+        }
+    }
+}
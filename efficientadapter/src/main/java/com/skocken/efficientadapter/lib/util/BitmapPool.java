@@ -0,0 +1,131 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bitmaps not displayed anymore, kept to decode the next images into their memory (with
+ * {@link android.graphics.BitmapFactory.Options#inBitmap}) instead of allocating new ones.
+ * The pool is bounded by a number of bytes: the oldest bitmaps are dropped first.
+ * <p>
+ * A bitmap put into the pool must not be used anymore by its previous owner.
+ *
+ * @see AsyncImageLoader#setBitmapPool(BitmapPool)
+ * @see EfficientCacheView#setBitmapPool(BitmapPool)
+ */
+public class BitmapPool {
+
+    private final int mMaxSize;
+
+    /**
+     * Bitmaps of the pool, from the oldest to the newest
+     */
+    private final List<Bitmap> mBitmaps = new ArrayList<>();
+
+    private int mSize;
+
+    /**
+     * @param maxSize the maximum number of bytes of the bitmaps kept into the pool
+     */
+    public BitmapPool(int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Put a bitmap into the pool. The immutable or recycled bitmaps can't be reused, and are
+     * ignored.
+     *
+     * @param bitmap the bitmap not used anymore
+     */
+    public synchronized void put(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        int size = getAllocationByteCount(bitmap);
+        if (size > mMaxSize || mBitmaps.contains(bitmap)) {
+            return;
+        }
+        mBitmaps.add(bitmap);
+        mSize += size;
+        while (mSize > mMaxSize) {
+            mSize -= getAllocationByteCount(mBitmaps.remove(0));
+        }
+    }
+
+    /**
+     * Take a bitmap out of the pool, which can be used as
+     * {@link android.graphics.BitmapFactory.Options#inBitmap} to decode an image of this size.
+     * Before KitKat, only a bitmap with this exact size and config can be reused (and the image
+     * must not be downsampled).
+     *
+     * @param width  the width of the decoded image
+     * @param height the height of the decoded image
+     * @param config the config of the decoded image
+     * @return the smallest bitmap large enough, or null if there is none
+     */
+    @Nullable
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        int index = -1;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            long byteCount = (long) width * height * getBytesPerPixel(config);
+            int bestSize = Integer.MAX_VALUE;
+            for (int i = 0; i < mBitmaps.size(); i++) {
+                int size = mBitmaps.get(i).getAllocationByteCount();
+                if (size >= byteCount && size < bestSize) {
+                    index = i;
+                    bestSize = size;
+                }
+            }
+        } else {
+            for (int i = 0; i < mBitmaps.size(); i++) {
+                Bitmap bitmap = mBitmaps.get(i);
+                if (bitmap.getWidth() == width && bitmap.getHeight() == height
+                        && bitmap.getConfig() == config) {
+                    index = i;
+                    break;
+                }
+            }
+        }
+        if (index == -1) {
+            return null;
+        }
+        Bitmap bitmap = mBitmaps.remove(index);
+        mSize -= getAllocationByteCount(bitmap);
+        return bitmap;
+    }
+
+    /**
+     * @return the number of bytes of the bitmaps into the pool
+     */
+    public synchronized int getSize() {
+        return mSize;
+    }
+
+    /**
+     * Remove all the bitmaps from the pool
+     */
+    public synchronized void clear() {
+        mBitmaps.clear();
+        mSize = 0;
+    }
+
+    private static int getAllocationByteCount(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getByteCount();
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        } else if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        }
+        return 4;
+    }
+}
@@ -0,0 +1,245 @@
+package com.skocken.efficientadapter.lib.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List of items stored into chunks of bounded size, to insert and remove items anywhere into a
+ * very large list without moving all the items after them.
+ * <p>
+ * Adding or removing an item moves the items of its chunk, and updates the start position of
+ * each chunk after it: an edit takes O(chunkSize + n / chunkSize), instead of O(n) for an
+ * {@link java.util.ArrayList}, but not a logarithmic time. A chunk full is split in two, and a
+ * chunk almost empty is merged with the next one. Reading an item searches its chunk by
+ * dichotomy, in O(log(n / chunkSize)). Give it to an adapter showing thousands of items, with
+ * items often inserted in the middle of the list.
+ *
+ * @param <T> the type of the items
+ */
+public class ChunkedList<T> extends AbstractList<T> implements RandomAccess {
+
+    private static final int DEFAULT_CHUNK_SIZE = 256;
+
+    private final int mChunkSize;
+
+    private final List<Chunk> mChunks = new ArrayList<>();
+
+    private int mSize;
+
+    /**
+     * Empty list with chunks of 256 items
+     */
+    public ChunkedList() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize the maximum number of items of each chunk, at least 4
+     */
+    public ChunkedList(int chunkSize) {
+        mChunkSize = Math.max(4, chunkSize);
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index, mSize - 1);
+        Chunk chunk = mChunks.get(findChunk(index));
+        return (T) chunk.mItems[index - chunk.mStart];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T item) {
+        checkIndex(index, mSize - 1);
+        Chunk chunk = mChunks.get(findChunk(index));
+        T previousItem = (T) chunk.mItems[index - chunk.mStart];
+        chunk.mItems[index - chunk.mStart] = item;
+        return previousItem;
+    }
+
+    @Override
+    public void add(int index, T item) {
+        checkIndex(index, mSize);
+        if (mChunks.isEmpty()) {
+            mChunks.add(new Chunk(mChunkSize, 0));
+        }
+        // an item added at the end goes into the last chunk
+        int chunkIndex = index == mSize ? mChunks.size() - 1 : findChunk(index);
+        Chunk chunk = mChunks.get(chunkIndex);
+        if (chunk.mSize == mChunkSize) {
+            Chunk nextChunk = split(chunkIndex);
+            if (index - chunk.mStart > chunk.mSize) {
+                chunkIndex++;
+                chunk = nextChunk;
+            }
+        }
+        int offset = index - chunk.mStart;
+        System.arraycopy(chunk.mItems, offset, chunk.mItems, offset + 1, chunk.mSize - offset);
+        chunk.mItems[offset] = item;
+        chunk.mSize++;
+        mSize++;
+        modCount++;
+        updateStarts(chunkIndex + 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int index) {
+        checkIndex(index, mSize - 1);
+        int chunkIndex = findChunk(index);
+        Chunk chunk = mChunks.get(chunkIndex);
+        int offset = index - chunk.mStart;
+        T item = (T) chunk.mItems[offset];
+        System.arraycopy(chunk.mItems, offset + 1, chunk.mItems, offset,
+                chunk.mSize - offset - 1);
+        chunk.mItems[--chunk.mSize] = null;
+        mSize--;
+        modCount++;
+        compact(chunkIndex);
+        updateStarts(chunkIndex);
+        return item;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) {
+            return;
+        }
+        int chunkIndex = findChunk(fromIndex);
+        int firstChunkIndex = chunkIndex;
+        int count = toIndex - fromIndex;
+        while (count > 0) {
+            Chunk chunk = mChunks.get(chunkIndex);
+            int offset = Math.max(0, fromIndex - chunk.mStart);
+            int removedCount = Math.min(count, chunk.mSize - offset);
+            System.arraycopy(chunk.mItems, offset + removedCount, chunk.mItems, offset,
+                    chunk.mSize - offset - removedCount);
+            for (int i = chunk.mSize - removedCount; i < chunk.mSize; i++) {
+                chunk.mItems[i] = null;
+            }
+            chunk.mSize -= removedCount;
+            count -= removedCount;
+            if (chunk.mSize == 0) {
+                mChunks.remove(chunkIndex);
+            } else {
+                chunkIndex++;
+            }
+        }
+        mSize -= toIndex - fromIndex;
+        modCount++;
+        if (firstChunkIndex < mChunks.size()) {
+            compact(firstChunkIndex);
+        }
+        updateStarts(firstChunkIndex);
+    }
+
+    @Override
+    public void clear() {
+        mChunks.clear();
+        mSize = 0;
+        modCount++;
+    }
+
+    private void checkIndex(int index, int maxIndex) {
+        if (index < 0 || index > maxIndex) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + mSize);
+        }
+    }
+
+    /**
+     * @return the index of the chunk holding the item at this position
+     */
+    private int findChunk(int index) {
+        int low = 0;
+        int high = mChunks.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (mChunks.get(middle).mStart <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Move the second half of this chunk into a new chunk inserted after it.
+     *
+     * @return the new chunk
+     */
+    private Chunk split(int chunkIndex) {
+        Chunk chunk = mChunks.get(chunkIndex);
+        int half = chunk.mSize / 2;
+        Chunk nextChunk = new Chunk(mChunkSize, chunk.mStart + half);
+        nextChunk.mSize = chunk.mSize - half;
+        System.arraycopy(chunk.mItems, half, nextChunk.mItems, 0, nextChunk.mSize);
+        for (int i = half; i < chunk.mSize; i++) {
+            chunk.mItems[i] = null;
+        }
+        chunk.mSize = half;
+        mChunks.add(chunkIndex + 1, nextChunk);
+        return nextChunk;
+    }
+
+    /**
+     * Remove this chunk if it's empty, or merge it with the next one if they're both small enough
+     * to fit in half a chunk.
+     */
+    private void compact(int chunkIndex) {
+        Chunk chunk = mChunks.get(chunkIndex);
+        if (chunk.mSize == 0) {
+            mChunks.remove(chunkIndex);
+            return;
+        }
+        if (chunkIndex + 1 < mChunks.size()) {
+            Chunk nextChunk = mChunks.get(chunkIndex + 1);
+            if (chunk.mSize + nextChunk.mSize <= mChunkSize / 2) {
+                System.arraycopy(nextChunk.mItems, 0, chunk.mItems, chunk.mSize, nextChunk.mSize);
+                chunk.mSize += nextChunk.mSize;
+                mChunks.remove(chunkIndex + 1);
+            }
+        }
+    }
+
+    /**
+     * Compute again the start position of the chunks from this one.
+     */
+    private void updateStarts(int fromChunkIndex) {
+        int start = 0;
+        if (fromChunkIndex > 0 && fromChunkIndex <= mChunks.size()) {
+            Chunk previousChunk = mChunks.get(fromChunkIndex - 1);
+            start = previousChunk.mStart + previousChunk.mSize;
+        }
+        for (int i = fromChunkIndex; i < mChunks.size(); i++) {
+            Chunk chunk = mChunks.get(i);
+            chunk.mStart = start;
+            start += chunk.mSize;
+        }
+    }
+
+    private static class Chunk {
+
+        private final Object[] mItems;
+
+        private int mSize;
+
+        /**
+         * Position of the first item of the chunk into the list
+         */
+        private int mStart;
+
+        Chunk(int capacity, int start) {
+            mItems = new Object[capacity];
+            mStart = start;
+        }
+    }
+}
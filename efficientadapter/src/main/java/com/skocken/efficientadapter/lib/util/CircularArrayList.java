@@ -0,0 +1,207 @@
+package com.skocken.efficientadapter.lib.util;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * List of items stored into a circular array, to insert and remove items at the head as fast as
+ * at the tail.
+ * <p>
+ * Adding or removing an item at the start or the end of the list takes a constant time, while an
+ * {@link java.util.ArrayList} moves all its items when one is added at its start. An item added or
+ * removed in the middle moves the items of the shortest side only. Give it to an adapter showing a
+ * list growing at its start, like the older messages of a conversation loaded above the others.
+ *
+ * @param <T> the type of the items
+ */
+public class CircularArrayList<T> extends AbstractList<T> implements RandomAccess {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Items of the list, the item at a position is into the slot
+     * {@code (mHead + position) & (mItems.length - 1)}. The length is a power of two.
+     */
+    private Object[] mItems;
+
+    private int mHead;
+
+    private int mSize;
+
+    /**
+     * Empty list with room for 16 items
+     */
+    public CircularArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of items the list can hold before growing
+     */
+    public CircularArrayList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+        mItems = new Object[roundUpToPowerOfTwo(capacity)];
+    }
+
+    /**
+     * @param items the items to put into the list
+     */
+    public CircularArrayList(Collection<? extends T> items) {
+        this(items.size());
+        addAll(items);
+    }
+
+    private static int roundUpToPowerOfTwo(int capacity) {
+        int length = DEFAULT_CAPACITY;
+        while (length < capacity) {
+            length <<= 1;
+        }
+        return length;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index, mSize - 1);
+        return (T) mItems[slot(index)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T item) {
+        checkIndex(index, mSize - 1);
+        int slot = slot(index);
+        T previousItem = (T) mItems[slot];
+        mItems[slot] = item;
+        return previousItem;
+    }
+
+    @Override
+    public void add(int index, T item) {
+        checkIndex(index, mSize);
+        ensureCapacity(mSize + 1);
+        openGap(index, 1);
+        mItems[slot(index)] = item;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends T> items) {
+        checkIndex(index, mSize);
+        Object[] array = items.toArray();
+        if (array.length == 0) {
+            return false;
+        }
+        ensureCapacity(mSize + array.length);
+        openGap(index, array.length);
+        for (int i = 0; i < array.length; i++) {
+            mItems[slot(index + i)] = array[i];
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> items) {
+        return addAll(mSize, items);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int index) {
+        checkIndex(index, mSize - 1);
+        T item = (T) mItems[slot(index)];
+        closeGap(index, index + 1);
+        return item;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < toIndex) {
+            closeGap(fromIndex, toIndex);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < mSize; i++) {
+            mItems[slot(i)] = null;
+        }
+        mHead = 0;
+        mSize = 0;
+        modCount++;
+    }
+
+    private int slot(int index) {
+        return (mHead + index) & (mItems.length - 1);
+    }
+
+    private void checkIndex(int index, int maxIndex) {
+        if (index < 0 || index > maxIndex) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + mSize);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= mItems.length) {
+            return;
+        }
+        Object[] items = new Object[roundUpToPowerOfTwo(capacity)];
+        for (int i = 0; i < mSize; i++) {
+            items[i] = mItems[slot(i)];
+        }
+        mItems = items;
+        mHead = 0;
+    }
+
+    /**
+     * Make room for {@code count} items at this position, by moving the items before it towards
+     * the head or the ones after it towards the tail, whichever are fewer.
+     */
+    private void openGap(int index, int count) {
+        if (index < mSize - index) {
+            mHead = (mHead - count) & (mItems.length - 1);
+            for (int i = 0; i < index; i++) {
+                mItems[slot(i)] = mItems[slot(i + count)];
+            }
+        } else {
+            for (int i = mSize - 1; i >= index; i--) {
+                mItems[slot(i + count)] = mItems[slot(i)];
+            }
+        }
+        mSize += count;
+        modCount++;
+    }
+
+    /**
+     * Remove the items between these positions, by moving the items before them towards the tail
+     * or the ones after them towards the head, whichever are fewer.
+     */
+    private void closeGap(int fromIndex, int toIndex) {
+        int count = toIndex - fromIndex;
+        if (fromIndex < mSize - toIndex) {
+            for (int i = fromIndex - 1; i >= 0; i--) {
+                mItems[slot(i + count)] = mItems[slot(i)];
+            }
+            for (int i = 0; i < count; i++) {
+                mItems[slot(i)] = null;
+            }
+            mHead = slot(count);
+        } else {
+            for (int i = toIndex; i < mSize; i++) {
+                mItems[slot(i - count)] = mItems[slot(i)];
+            }
+            for (int i = mSize - count; i < mSize; i++) {
+                mItems[slot(i)] = null;
+            }
+        }
+        mSize -= count;
+        modCount++;
+    }
+}
@@ -0,0 +1,159 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.database.Cursor;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractList;
+
+/**
+ * Read-only list of the rows of a cursor, mapped into items only when they're read.
+ * <p>
+ * Only a window of rows around the last ones read is kept as items: each row mapped takes the
+ * place of the row {@code windowSize} positions before or after it, and the item of this row is
+ * given to the {@link RowMapper} to be reused. The window must be larger than the number of rows
+ * displayed at once, or the items of rows still displayed would be reused.
+ * <p>
+ * All the methods must be called on the UI thread. The cursor stays owned by the caller, who
+ * closes it once the list isn't used anymore.
+ *
+ * @param <T> the type of the items
+ */
+public class CursorList<T> extends AbstractList<T> {
+
+    private static final int DEFAULT_WINDOW_SIZE = 100;
+
+    private final Cursor mCursor;
+
+    private final RowMapper<T> mRowMapper;
+
+    /**
+     * Items of the window, the row at a position is into the slot {@code position % windowSize}
+     */
+    private final Object[] mItems;
+
+    /**
+     * Position of the row of each slot, -1 if there is none
+     */
+    private final int[] mPositions;
+
+    /**
+     * List keeping the items of 100 rows
+     *
+     * @param cursor    the cursor of the rows
+     * @param rowMapper the mapper of the rows into items
+     */
+    public CursorList(Cursor cursor, RowMapper<T> rowMapper) {
+        this(cursor, rowMapper, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param cursor     the cursor of the rows
+     * @param rowMapper  the mapper of the rows into items
+     * @param windowSize the number of rows kept as items
+     */
+    public CursorList(Cursor cursor, RowMapper<T> rowMapper, int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+        }
+        mCursor = cursor;
+        mRowMapper = rowMapper;
+        mItems = new Object[windowSize];
+        mPositions = new int[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            mPositions[i] = -1;
+        }
+    }
+
+    /**
+     * @return the cursor of the rows
+     */
+    public Cursor getCursor() {
+        return mCursor;
+    }
+
+    @Override
+    public int size() {
+        return mCursor.getCount();
+    }
+
+    /**
+     * Get the item of the row at this position, mapped from the cursor if it's not into the
+     * window.
+     *
+     * @param index the position of the row
+     * @return the item of the row
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        int slot = index % mItems.length;
+        if (mPositions[slot] == index) {
+            return (T) mItems[slot];
+        }
+        T item = mapRow(index, mPositions[slot] == -1 ? null : (T) mItems[slot]);
+        mItems[slot] = item;
+        mPositions[slot] = index;
+        return item;
+    }
+
+    private T mapRow(int index, @Nullable T recycledItem) {
+        mCursor.moveToPosition(index);
+        return mRowMapper.mapRow(mCursor, recycledItem);
+    }
+
+    /**
+     * Searches the items of the window only, without mapping the other rows.
+     */
+    @Override
+    public int indexOf(Object object) {
+        int position = -1;
+        for (int i = 0; i < mItems.length; i++) {
+            if (mPositions[i] != -1 && (position == -1 || mPositions[i] < position)
+                    && (object == null ? mItems[i] == null : object.equals(mItems[i]))) {
+                position = mPositions[i];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Searches the items of the window only, without mapping the other rows.
+     */
+    @Override
+    public boolean contains(Object object) {
+        return indexOf(object) != -1;
+    }
+
+    /**
+     * Map all the rows into new items, which are not reused by the list.
+     */
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = mapRow(i, null);
+        }
+        return array;
+    }
+
+    /**
+     * Map the rows of a cursor into items.
+     *
+     * @param <T> the type of the items
+     */
+    public interface RowMapper<T> {
+
+        /**
+         * Map the current row of the cursor. The cursor must not be moved.
+         *
+         * @param cursor       the cursor, moved to the row
+         * @param recycledItem an item not used anymore, which can be filled with this row and
+         *                     returned, or null if there is none
+         * @return the item of the row
+         */
+        T mapRow(Cursor cursor, @Nullable T recycledItem);
+    }
+}
@@ -0,0 +1,255 @@
+package com.skocken.efficientadapter.lib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * List of operations to apply on an {@link AdapterUpdater.Updater} to go from a list of items to
+ * another one.
+ * The script can be computed on any thread with {@link AdapterUpdater#calculate(List, List)},
+ * then dispatched on the thread owning the updater with {@link #dispatchTo(AdapterUpdater.Updater)}.
+ * <p>
+ * Consecutive operations of the same kind are merged into ranges (inserted, removed, replaced or
+ * changed items), and an item removed then added again is a move.
+ */
+public class EditScript<T> {
+
+    private static final int TYPE_CHANGED = 0;
+
+    private static final int TYPE_REMOVED = 1;
+
+    private static final int TYPE_INSERTED = 2;
+
+    private static final int TYPE_MOVED = 3;
+
+    private static final int TYPE_REPLACED = 4;
+
+    private final List<Operation<T>> mOperations = new ArrayList<>();
+
+    EditScript() {
+    }
+
+    void addChanged(int position) {
+        addChanged(position, null);
+    }
+
+    void addChanged(int position, Object payload) {
+        Operation<T> lastOperation = getLastOperation();
+        if (lastOperation != null && lastOperation.mType == TYPE_CHANGED
+                && lastOperation.mPosition + lastOperation.mCount == position
+                && lastOperation.mPayload == payload) {
+            lastOperation.mCount++;
+        } else {
+            Operation<T> operation = new Operation<>(TYPE_CHANGED, position, 1);
+            operation.mPayload = payload;
+            mOperations.add(operation);
+        }
+    }
+
+    void addRemoved(int position) {
+        Operation<T> lastOperation = getLastOperation();
+        if (lastOperation != null && lastOperation.mType == TYPE_REMOVED
+                && lastOperation.mPosition == position) {
+            lastOperation.mCount++;
+        } else {
+            mOperations.add(new Operation<T>(TYPE_REMOVED, position, 1));
+        }
+    }
+
+    void addInserted(int position, T item) {
+        Operation<T> lastOperation = getLastOperation();
+        if (lastOperation != null && lastOperation.mType == TYPE_INSERTED
+                && lastOperation.mPosition + lastOperation.mCount == position) {
+            lastOperation.mItems.add(item);
+            lastOperation.mCount++;
+        } else {
+            Operation<T> operation = new Operation<>(TYPE_INSERTED, position, 1);
+            operation.mItems = new ArrayList<>();
+            operation.mItems.add(item);
+            mOperations.add(operation);
+        }
+    }
+
+    void addMoved(int fromPosition, int toPosition) {
+        Operation<T> operation = new Operation<>(TYPE_MOVED, fromPosition, 1);
+        operation.mToPosition = toPosition;
+        mOperations.add(operation);
+    }
+
+    void addReplaced(int position, T item) {
+        Operation<T> lastOperation = getLastOperation();
+        if (lastOperation != null && lastOperation.mType == TYPE_REPLACED
+                && lastOperation.mPosition + lastOperation.mCount == position) {
+            lastOperation.mItems.add(item);
+            lastOperation.mCount++;
+        } else {
+            Operation<T> operation = new Operation<>(TYPE_REPLACED, position, 1);
+            operation.mItems = new ArrayList<>();
+            operation.mItems.add(item);
+            mOperations.add(operation);
+        }
+    }
+
+    void append(EditScript<T> editScript) {
+        mOperations.addAll(editScript.mOperations);
+    }
+
+    private Operation<T> getLastOperation() {
+        int size = mOperations.size();
+        return size == 0 ? null : mOperations.get(size - 1);
+    }
+
+    /**
+     * @return true if there is no operation to apply
+     */
+    public boolean isEmpty() {
+        return mOperations.isEmpty();
+    }
+
+    /**
+     * Apply all the operations of this script, in order, to the updater, one item at a time.
+     * The updater must contain the list of items the script has been calculated from.
+     *
+     * @param updater the target of the operations
+     */
+    public void dispatchTo(AdapterUpdater.Updater<T> updater) {
+        dispatchTo(new UpdaterCallback<>(updater));
+    }
+
+    /**
+     * Apply all the operations of this script, in order, to the callback.
+     * The callback must represent the list of items the script has been calculated from.
+     *
+     * @param callback the target of the operations
+     */
+    public void dispatchTo(Callback<T> callback) {
+        for (Operation<T> operation : mOperations) {
+            switch (operation.mType) {
+                case TYPE_CHANGED:
+                    callback.onChanged(operation.mPosition, operation.mCount,
+                            operation.mPayload);
+                    break;
+                case TYPE_REMOVED:
+                    callback.onRemoved(operation.mPosition, operation.mCount);
+                    break;
+                case TYPE_INSERTED:
+                    callback.onInserted(operation.mPosition, operation.mItems);
+                    break;
+                case TYPE_MOVED:
+                    callback.onMoved(operation.mPosition, operation.mToPosition);
+                    break;
+                case TYPE_REPLACED:
+                    callback.onReplaced(operation.mPosition, operation.mItems);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Target of the ranged operations of an {@link EditScript}.
+     * Each operation must be applied before the next one is received: the positions are relative
+     * to the list with all the previous operations applied.
+     */
+    public interface Callback<T> {
+
+        /**
+         * {@code count} items have changed, starting at {@code position}
+         *
+         * @param payload the description of the change given by the
+         *                {@link AdapterUpdater.ItemComparator}, or null for a full update
+         */
+        void onChanged(int position, int count, Object payload);
+
+        /**
+         * {@code count} items have been removed, starting at {@code position}
+         */
+        void onRemoved(int position, int count);
+
+        /**
+         * {@code items} have been inserted at {@code position}
+         */
+        void onInserted(int position, List<T> items);
+
+        /**
+         * The item at {@code fromPosition} has been moved to {@code toPosition}
+         */
+        void onMoved(int fromPosition, int toPosition);
+
+        /**
+         * The items starting at {@code position} have been replaced by {@code items}, which
+         * represent the same elements. It's not a change of the contents, an
+         * {@link #onChanged(int, int, Object)} will follow if needed.
+         */
+        void onReplaced(int position, List<T> items);
+    }
+
+    /**
+     * Callback applying each operation one item at a time on an {@link AdapterUpdater.Updater}.
+     */
+    public static class UpdaterCallback<T> implements Callback<T> {
+
+        private final AdapterUpdater.Updater<T> mUpdater;
+
+        public UpdaterCallback(AdapterUpdater.Updater<T> updater) {
+            mUpdater = updater;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            for (int i = position; i < position + count; i++) {
+                mUpdater.notifyItemChanged(i);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            for (int i = 0; i < count; i++) {
+                mUpdater.removeAt(position);
+            }
+        }
+
+        @Override
+        public void onInserted(int position, List<T> items) {
+            for (int i = 0; i < items.size(); i++) {
+                mUpdater.add(position + i, items.get(i));
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            T item = mUpdater.get(fromPosition);
+            mUpdater.removeAt(fromPosition);
+            mUpdater.add(toPosition, item);
+        }
+
+        @Override
+        public void onReplaced(int position, List<T> items) {
+            // no way to set an item on an Updater
+            for (int i = 0; i < items.size(); i++) {
+                mUpdater.removeAt(position + i);
+                mUpdater.add(position + i, items.get(i));
+            }
+        }
+    }
+
+    private static class Operation<T> {
+
+        private final int mType;
+
+        private final int mPosition;
+
+        private int mCount;
+
+        private int mToPosition;
+
+        private List<T> mItems;
+
+        private Object mPayload;
+
+        Operation(int type, int position, int count) {
+            mType = type;
+            mPosition = position;
+            mCount = count;
+        }
+    }
+}
@@ -1,27 +1,396 @@
 package com.skocken.efficientadapter.lib.util;
 
+import android.graphics.Bitmap;
+import android.net.Uri;
 import android.util.SparseArray;
 import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import java.util.Arrays;
 
 public class EfficientCacheView {
 
-    private SparseArray<SparseArray<View>> mSparseSparseArrayView = new SparseArray<>();
+    static final int VALUE_VISIBILITY = 0;
+
+    static final int VALUE_BACKGROUND_DRAWABLE = 1;
+
+    static final int VALUE_BACKGROUND_COLOR = 2;
+
+    static final int VALUE_BACKGROUND_RESOURCE = 3;
+
+    static final int VALUE_TEXT = 4;
+
+    static final int VALUE_TEXT_RESOURCE = 5;
+
+    static final int VALUE_TEXT_COLOR = 6;
+
+    static final int VALUE_TEXT_SIZE = 7;
+
+    static final int VALUE_IMAGE_RESOURCE = 8;
+
+    static final int VALUE_IMAGE_DRAWABLE = 9;
+
+    static final int VALUE_IMAGE_URI = 10;
+
+    static final int VALUE_IMAGE_BITMAP = 11;
+
+    /**
+     * Property of the view set by each type of value: the values of the same property replace
+     * each other (a background color replaces a background drawable)
+     */
+    private static final int[] PROPERTY_BY_VALUE = {0, 1, 1, 1, 2, 2, 3, 4, 5, 5, 5, 5};
+
+    private static final int PROPERTY_IMAGE = 5;
+
+    private static final int PROPERTY_COUNT = 6;
+
+    /**
+     * Views by id, whatever the parent id used to retrieve them
+     */
+    private final SparseArray<View> mSparseArrayView = new SparseArray<>();
+
+    /**
+     * Views retrieved with a parent id, by parent id then by id
+     */
+    private final SparseArray<SparseArray<View>> mSparseSparseArrayViewByParent =
+            new SparseArray<>();
 
     private final View mView;
 
+    private ViewPathTemplate mViewPathTemplate;
+
+    /**
+     * Last values applied on the views, by id. Null if the unchanged values are not skipped.
+     */
+    private SparseArray<AppliedValues> mAppliedValues;
+
+    private ImageLoader mImageLoader;
+
+    /**
+     * Views given to the image loader, by id
+     */
+    private SparseArray<ImageView> mImageViewsLoaded;
+
+    private BitmapPool mBitmapPool;
+
+    private TextPrecomputer mTextPrecomputer;
+
+    /**
+     * Bitmaps given to the views, by id. Only used with a bitmap pool.
+     */
+    private SparseArray<OwnedBitmap> mOwnedBitmaps;
+
     public EfficientCacheView(View view) {
         mView = view;
     }
 
+    /**
+     * @param view       the root view
+     * @param indexViews true to walk the hierarchy of the view once now, and index all the views
+     *                   with an id. The first lookup of each id is then a simple read of this
+     *                   index, instead of a search into the hierarchy.
+     */
+    public EfficientCacheView(View view, boolean indexViews) {
+        mView = view;
+        if (indexViews) {
+            indexViews(view, mSparseArrayView);
+        }
+    }
+
+    /**
+     * Index the view and its children, in the same order as {@link View#findViewById(int)}: if
+     * several views have the same id, the first one found is kept.
+     */
+    private static void indexViews(View view, SparseArray<View> sparseArrayViews) {
+        int id = view.getId();
+        if (id != View.NO_ID && sparseArrayViews.get(id) == null) {
+            sparseArrayViews.put(id, view);
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            int childCount = viewGroup.getChildCount();
+            for (int i = 0; i < childCount; i++) {
+                indexViews(viewGroup.getChildAt(i), sparseArrayViews);
+            }
+        }
+    }
+
     public View getView() {
         return mView;
     }
 
     /**
-     * Clear the cache of views retrieved
+     * Share the paths of the views with the other hierarchies inflated from the same layout: a
+     * view found by one of them is then retrieved by the others without searching it.
+     *
+     * @param viewPathTemplate the template of the layout of the root view, or null
+     */
+    public void setViewPathTemplate(ViewPathTemplate viewPathTemplate) {
+        mViewPathTemplate = viewPathTemplate;
+    }
+
+    /**
+     * Load the images given to {@link ViewHelper#setImageUri(EfficientCacheView, int, Uri)} with
+     * this loader, instead of decoding them on the UI thread.
+     *
+     * @param imageLoader the loader, or null to set the images synchronously
+     */
+    public void setImageLoader(ImageLoader imageLoader) {
+        releaseLoadedImages();
+        mImageLoader = imageLoader;
+    }
+
+    public ImageLoader getImageLoader() {
+        return mImageLoader;
+    }
+
+    /**
+     * Consider the bitmaps given to {@link ViewHelper#setImageBitmap(EfficientCacheView, int,
+     * Bitmap)} as owned by the views: they are put into the pool when they're replaced by another
+     * image, or when the images are released.
+     * Only use it if these bitmaps are not used anywhere else.
+     *
+     * @param bitmapPool the pool, or null to let the garbage collector free the bitmaps
+     */
+    public void setBitmapPool(BitmapPool bitmapPool) {
+        mBitmapPool = bitmapPool;
+        if (bitmapPool == null) {
+            mOwnedBitmaps = null;
+        }
+    }
+
+    public BitmapPool getBitmapPool() {
+        return mBitmapPool;
+    }
+
+    /**
+     * Set the texts given to {@link ViewHelper#setText(EfficientCacheView, int, CharSequence)} in
+     * their precomputed version, when they have been precomputed by this precomputer.
+     *
+     * @param textPrecomputer the precomputer, or null to always set the texts as they are
+     */
+    public void setTextPrecomputer(TextPrecomputer textPrecomputer) {
+        mTextPrecomputer = textPrecomputer;
+    }
+
+    public TextPrecomputer getTextPrecomputer() {
+        return mTextPrecomputer;
+    }
+
+    /**
+     * Cancel the loads of images into the views, if any.
+     */
+    public void cancelImageLoads() {
+        if (mImageViewsLoaded == null) {
+            return;
+        }
+        for (int i = 0; i < mImageViewsLoaded.size(); i++) {
+            if (mImageLoader.cancel(mImageViewsLoaded.valueAt(i))) {
+                // the image has not been set, the uri must be applied again
+                forgetAppliedValue(mImageViewsLoaded.keyAt(i), PROPERTY_IMAGE);
+            }
+        }
+    }
+
+    /**
+     * Cancel the loads of images into the views, and remove the images of the image loader and
+     * the bitmaps owned by the views, to be reused by the next images: call it when the views are
+     * recycled, so they never show the images of their previous item.
+     */
+    public void releaseImages() {
+        releaseLoadedImages();
+        if (mOwnedBitmaps != null) {
+            for (int i = 0; i < mOwnedBitmaps.size(); i++) {
+                OwnedBitmap ownedBitmap = mOwnedBitmaps.valueAt(i);
+                ownedBitmap.mImageView.setImageDrawable(null);
+                forgetAppliedValue(mOwnedBitmaps.keyAt(i), PROPERTY_IMAGE);
+                mBitmapPool.put(ownedBitmap.mBitmap);
+            }
+            mOwnedBitmaps.clear();
+        }
+    }
+
+    private void releaseLoadedImages() {
+        if (mImageViewsLoaded == null) {
+            return;
+        }
+        for (int i = 0; i < mImageViewsLoaded.size(); i++) {
+            mImageLoader.release(mImageViewsLoaded.valueAt(i));
+            forgetAppliedValue(mImageViewsLoaded.keyAt(i), PROPERTY_IMAGE);
+        }
+        mImageViewsLoaded = null;
+    }
+
+    /**
+     * Load the image of the uri into the view with the image loader
+     */
+    void loadImage(ImageView imageView, int viewId, Uri uri) {
+        if (mImageViewsLoaded == null) {
+            mImageViewsLoaded = new SparseArray<>();
+        }
+        mImageViewsLoaded.put(viewId, imageView);
+        mImageLoader.load(imageView, uri);
+    }
+
+    /**
+     * Called before setting an image on the view by another mean than the image loader: its load
+     * must be cancelled, and its image released.
+     */
+    void onImageChanging(ImageView imageView, int viewId) {
+        if (mImageViewsLoaded != null && mImageViewsLoaded.get(viewId) == imageView) {
+            mImageViewsLoaded.remove(viewId);
+            mImageLoader.release(imageView);
+        }
+    }
+
+    /**
+     * Called after setting an image on the view: the bitmap previously owned by the view can be
+     * reused.
+     *
+     * @param bitmap the bitmap now owned by the view, or null
+     */
+    void onImageChanged(ImageView imageView, int viewId, Bitmap bitmap) {
+        if (mBitmapPool == null) {
+            return;
+        }
+        OwnedBitmap previous = mOwnedBitmaps == null ? null : mOwnedBitmaps.get(viewId);
+        if (previous != null && previous.mImageView == imageView && previous.mBitmap == bitmap) {
+            return;
+        }
+        if (bitmap != null) {
+            if (mOwnedBitmaps == null) {
+                mOwnedBitmaps = new SparseArray<>();
+            }
+            mOwnedBitmaps.put(viewId, new OwnedBitmap(imageView, bitmap));
+        } else if (previous != null) {
+            mOwnedBitmaps.remove(viewId);
+        }
+        if (previous != null && previous.mImageView == imageView) {
+            mBitmapPool.put(previous.mBitmap);
+        }
+    }
+
+    /**
+     * Remember the last value applied on each property of the views through {@link ViewHelper},
+     * and skip the calls with the same value: setting an equal text on a TextView still requests
+     * a layout for example.
+     * <p>
+     * Strings and Uris are compared with equals, the other values by reference. The other
+     * CharSequences (which can be mutable, or have spans) are always applied.
+     * Only use it if the views are updated through {@link ViewHelper} (or the helpers of the
+     * view holder), or call {@link #clearAppliedValues()} after changing them by other means.
+     *
+     * @param skipUnchangedValues true to skip the unchanged values
+     */
+    public void setSkipUnchangedValues(boolean skipUnchangedValues) {
+        if (!skipUnchangedValues) {
+            mAppliedValues = null;
+        } else if (mAppliedValues == null) {
+            mAppliedValues = new SparseArray<>();
+        }
+    }
+
+    /**
+     * @return true if the unchanged values are skipped
+     * @see #setSkipUnchangedValues(boolean)
+     */
+    public boolean isSkipUnchangedValues() {
+        return mAppliedValues != null;
+    }
+
+    /**
+     * Forget the values applied on the views: the next values will be applied, even if they are
+     * unchanged.
+     */
+    public void clearAppliedValues() {
+        if (mAppliedValues != null) {
+            mAppliedValues.clear();
+        }
+    }
+
+    /**
+     * Check if a value is the last one applied on this property of the view, and record it as the
+     * last one applied otherwise.
+     *
+     * @param view      the view with this id
+     * @param viewId    the id of the view
+     * @param valueType the type of value, one of the VALUE_ constants
+     * @param value     the value
+     * @return true if the value can be skipped
+     */
+    boolean isAlreadyApplied(View view, int viewId, int valueType, long value) {
+        AppliedValues appliedValues = getAppliedValues(view, viewId);
+        if (appliedValues == null) {
+            return false;
+        }
+        int property = PROPERTY_BY_VALUE[valueType];
+        if (appliedValues.mTypes[property] == valueType
+                && appliedValues.mLongs[property] == value) {
+            return true;
+        }
+        appliedValues.mTypes[property] = valueType;
+        appliedValues.mLongs[property] = value;
+        appliedValues.mObjects[property] = null;
+        return false;
+    }
+
+    /**
+     * Same as {@link #isAlreadyApplied(View, int, int, long)} for an object value
+     */
+    boolean isAlreadyApplied(View view, int viewId, int valueType, Object value) {
+        AppliedValues appliedValues = getAppliedValues(view, viewId);
+        if (appliedValues == null) {
+            return false;
+        }
+        int property = PROPERTY_BY_VALUE[valueType];
+        if (appliedValues.mTypes[property] == valueType
+                && isSameValue(value, appliedValues.mObjects[property])) {
+            return true;
+        }
+        appliedValues.mTypes[property] = valueType;
+        appliedValues.mObjects[property] = value;
+        return false;
+    }
+
+    private AppliedValues getAppliedValues(View view, int viewId) {
+        if (mAppliedValues == null) {
+            return null;
+        }
+        AppliedValues appliedValues = mAppliedValues.get(viewId);
+        // the values applied on another view with this id are not relevant
+        if (appliedValues == null || appliedValues.mView != view) {
+            appliedValues = new AppliedValues(view);
+            mAppliedValues.put(viewId, appliedValues);
+        }
+        return appliedValues;
+    }
+
+    private void forgetAppliedValue(int viewId, int property) {
+        AppliedValues appliedValues = mAppliedValues == null ? null : mAppliedValues.get(viewId);
+        if (appliedValues != null) {
+            appliedValues.mTypes[property] = -1;
+            appliedValues.mObjects[property] = null;
+        }
+    }
+
+    private static boolean isSameValue(Object value, Object appliedValue) {
+        if (value instanceof CharSequence && !(value instanceof String)) {
+            return false;
+        }
+        if (value == appliedValue) {
+            return true;
+        }
+        return (value instanceof String || value instanceof Uri) && value.equals(appliedValue);
+    }
+
+    /**
+     * Clear the cache of views retrieved, and the index of the views if any
      */
     public void clearViewsCached() {
-        mSparseSparseArrayView.clear();
+        mSparseArrayView.clear();
+        mSparseSparseArrayViewByParent.clear();
+        clearAppliedValues();
     }
 
     /**
@@ -41,9 +410,17 @@ public class EfficientCacheView {
      * @param viewId   id of the view to remove from the cache
      */
     public void clearViewCached(int parentId, int viewId) {
-        SparseArray<View> sparseArrayViewsParent = mSparseSparseArrayView.get(parentId);
+        if (parentId == 0) {
+            mSparseArrayView.remove(viewId);
+            return;
+        }
+        SparseArray<View> sparseArrayViewsParent = mSparseSparseArrayViewByParent.get(parentId);
         if (sparseArrayViewsParent != null) {
+            View viewRemoved = sparseArrayViewsParent.get(viewId);
             sparseArrayViewsParent.remove(viewId);
+            if (viewRemoved != null && mSparseArrayView.get(viewId) == viewRemoved) {
+                mSparseArrayView.remove(viewId);
+            }
         }
     }
 
@@ -86,17 +463,35 @@ public class EfficientCacheView {
     }
 
     private void storeView(int parentId, int id, View viewRetrieve) {
-        SparseArray<View> sparseArrayViewsParent = mSparseSparseArrayView.get(parentId);
+        if (parentId == 0) {
+            mSparseArrayView.put(id, viewRetrieve);
+            return;
+        }
+        SparseArray<View> sparseArrayViewsParent = mSparseSparseArrayViewByParent.get(parentId);
         if (sparseArrayViewsParent == null) {
             sparseArrayViewsParent = new SparseArray<>();
-            mSparseSparseArrayView.put(parentId, sparseArrayViewsParent);
+            mSparseSparseArrayViewByParent.put(parentId, sparseArrayViewsParent);
         }
         sparseArrayViewsParent.put(id, viewRetrieve);
+        // a view found into a parent is also returned when it's requested by its id only
+        if (mSparseArrayView.get(id) == null) {
+            mSparseArrayView.put(id, viewRetrieve);
+        }
     }
 
     private View findViewById(int parentId, int id) {
         if (parentId == 0) {
-            return mView.findViewById(id);
+            if (mViewPathTemplate == null) {
+                return mView.findViewById(id);
+            }
+            View view = mViewPathTemplate.findViewByPath(mView, id);
+            if (view == null) {
+                view = mView.findViewById(id);
+                if (view != null) {
+                    mViewPathTemplate.learnPath(mView, id, view);
+                }
+            }
+            return view;
         } else {
             View parent = findViewByIdEfficient(parentId);
             if (parent != null) {
@@ -108,34 +503,38 @@ public class EfficientCacheView {
     }
 
     private View retrieveFromCache(int parentId, int id) {
-        SparseArray<View> sparseArrayViewsParent = mSparseSparseArrayView.get(parentId);
-        if (sparseArrayViewsParent != null) {
-            View viewRetrieve = sparseArrayViewsParent.get(id);
-            if (viewRetrieve == null) {
-                // dead reference
-                sparseArrayViewsParent.remove(id);
-            } else {
-                return viewRetrieve;
-            }
-        }
         if (parentId == 0) {
-            return retrieveFromCache(id);
-        } else {
-            return null;
+            return mSparseArrayView.get(id);
         }
+        SparseArray<View> sparseArrayViewsParent = mSparseSparseArrayViewByParent.get(parentId);
+        return sparseArrayViewsParent == null ? null : sparseArrayViewsParent.get(id);
     }
 
-    private View retrieveFromCache(int id) {
-        for (int i = 0; i < mSparseSparseArrayView.size(); i++) {
-            int parentId = mSparseSparseArrayView.keyAt(i);
-            if (parentId != 0) {
-                View viewRetrieve = retrieveFromCache(parentId, id);
-                if (viewRetrieve != null) {
-                    return viewRetrieve;
-                }
-            }
+    private static class AppliedValues {
+
+        private final View mView;
+
+        private final int[] mTypes = new int[PROPERTY_COUNT];
+
+        private final long[] mLongs = new long[PROPERTY_COUNT];
+
+        private final Object[] mObjects = new Object[PROPERTY_COUNT];
+
+        AppliedValues(View view) {
+            mView = view;
+            Arrays.fill(mTypes, -1);
         }
-        return null;
     }
 
+    private static class OwnedBitmap {
+
+        private final ImageView mImageView;
+
+        private final Bitmap mBitmap;
+
+        OwnedBitmap(ImageView imageView, Bitmap bitmap) {
+            mImageView = imageView;
+            mBitmap = bitmap;
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.net.Uri;
+import androidx.annotation.Nullable;
+import android.widget.ImageView;
+
+/**
+ * Load the images given to {@link ViewHelper#setImageUri(EfficientCacheView, int, Uri)} without
+ * blocking the UI thread.
+ * All the methods are called on the UI thread.
+ *
+ * @see AsyncImageLoader
+ * @see EfficientCacheView#setImageLoader(ImageLoader)
+ */
+public interface ImageLoader {
+
+    /**
+     * Load the image of the uri into the view. The previous load into this view, if any, is
+     * replaced by this one: its image must never be set on the view.
+     *
+     * @param imageView the view to set the image on
+     * @param uri       the Uri of an image, or {@code null} to clear the content
+     */
+    void load(ImageView imageView, @Nullable Uri uri);
+
+    /**
+     * Cancel the load into the view, if any: its image must never be set on the view.
+     *
+     * @param imageView the view given to {@link #load(ImageView, Uri)}
+     * @return true if a load has been cancelled, false if there was no load in progress
+     */
+    boolean cancel(ImageView imageView);
+
+    /**
+     * The view holder of the view has been recycled: cancel the load into the view if any, and
+     * remove its image, which can then be reused.
+     *
+     * @param imageView the view given to {@link #load(ImageView, Uri)}
+     */
+    void release(ImageView imageView);
+}
@@ -0,0 +1,284 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Read-only list of a known number of items, loaded by pages from a {@link DataSource} on a
+ * background thread when they're needed.
+ * <p>
+ * {@link #get(int)} returns null, a placeholder, while the page of the item is loading. Only a few
+ * pages are kept in memory: the ones the farthest from the last item read are evicted first.
+ * Given to an {@link com.skocken.efficientadapter.lib.adapter.EfficientRecyclerAdapter}, the
+ * items of each page loaded are notified as changed, so their view holders are bound again.
+ * <p>
+ * All the methods must be called on the UI thread. The list can't be modified: to show new data,
+ * create a new list. Iterating over the list loads all its pages.
+ *
+ * @param <T> the type of the items
+ */
+public class PagedList<T> extends AbstractList<T> {
+
+    private static final String TAG = "PagedList";
+
+    private static final int DEFAULT_MAX_PAGES = 5;
+
+    private static Executor sDefaultExecutor;
+
+    private final DataSource<T> mDataSource;
+
+    private final int mSize;
+
+    private final int mPageSize;
+
+    private final int mMaxPages;
+
+    private final Executor mExecutor;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Items of the pages loaded, by index of page
+     */
+    private final SparseArray<Object[]> mPages = new SparseArray<>();
+
+    private final SparseBooleanArray mLoadingPages = new SparseBooleanArray();
+
+    private int mLastPageRead;
+
+    private Callback mCallback;
+
+    /**
+     * List keeping 5 pages in memory, loaded on a background thread shared by all the lists
+     *
+     * @param dataSource the source of the items
+     * @param size       the total number of items
+     * @param pageSize   the number of items of each page
+     */
+    public PagedList(DataSource<T> dataSource, int size, int pageSize) {
+        this(dataSource, size, pageSize, DEFAULT_MAX_PAGES, null);
+    }
+
+    /**
+     * @param dataSource the source of the items
+     * @param size       the total number of items
+     * @param pageSize   the number of items of each page
+     * @param maxPages   the maximum number of pages kept in memory, at least 2
+     * @param executor   the executor loading the pages, or null to use the default one (a single
+     *                   background thread shared by all the lists)
+     */
+    public PagedList(DataSource<T> dataSource, int size, int pageSize, int maxPages,
+            @Nullable Executor executor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        mDataSource = dataSource;
+        mSize = size;
+        mPageSize = pageSize;
+        mMaxPages = Math.max(2, maxPages);
+        mExecutor = executor == null ? getDefaultExecutor() : executor;
+    }
+
+    private static Executor getDefaultExecutor() {
+        synchronized (PagedList.class) {
+            if (sDefaultExecutor == null) {
+                sDefaultExecutor = Executors.newSingleThreadExecutor();
+            }
+            return sDefaultExecutor;
+        }
+    }
+
+    /**
+     * Set the callback notified of the pages loaded.
+     *
+     * @param callback the callback, or null
+     */
+    public void setCallback(@Nullable Callback callback) {
+        mCallback = callback;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Get the item at this position, and load its page if needed. The next page is loaded too
+     * when the item is in the second half of its page, the previous one in the first half.
+     *
+     * @param index the position of the item
+     * @return the item, or null if its page is not loaded yet
+     */
+    @Override
+    @Nullable
+    public T get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + mSize);
+        }
+        int page = index / mPageSize;
+        mLastPageRead = page;
+        loadPage(page);
+        if (index % mPageSize >= mPageSize / 2) {
+            loadPage(page + 1);
+        } else {
+            loadPage(page - 1);
+        }
+        return peek(index);
+    }
+
+    /**
+     * @param index the position of the item
+     * @return true if the item at this position is loaded
+     */
+    public boolean isLoaded(int index) {
+        return mPages.get(index / mPageSize) != null;
+    }
+
+    /**
+     * Searches the items loaded only, without loading the other pages.
+     */
+    @Override
+    public int indexOf(Object object) {
+        for (int i = 0; i < mPages.size(); i++) {
+            Object[] items = mPages.valueAt(i);
+            for (int j = 0; j < items.length; j++) {
+                if (object == null ? items[j] == null : object.equals(items[j])) {
+                    return mPages.keyAt(i) * mPageSize + j;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Searches the items loaded only, without loading the other pages.
+     */
+    @Override
+    public boolean contains(Object object) {
+        return indexOf(object) != -1;
+    }
+
+    /**
+     * Copy the items without loading the pages: the items not loaded are null.
+     */
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[mSize];
+        for (int i = 0; i < mPages.size(); i++) {
+            Object[] items = mPages.valueAt(i);
+            int start = mPages.keyAt(i) * mPageSize;
+            System.arraycopy(items, 0, array, start, items.length);
+        }
+        return array;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T peek(int index) {
+        Object[] items = mPages.get(index / mPageSize);
+        return items == null ? null : (T) items[index % mPageSize];
+    }
+
+    private void loadPage(final int page) {
+        final int start = page * mPageSize;
+        if (page < 0 || start >= mSize || mPages.get(page) != null || mLoadingPages.get(page)) {
+            return;
+        }
+        mLoadingPages.put(page, true);
+        final int count = Math.min(mPageSize, mSize - start);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<T> items;
+                try {
+                    items = mDataSource.loadRange(start, count);
+                } catch (RuntimeException e) {
+                    // an uncaught exception would kill the app, the page is loaded again later
+                    Log.w(TAG, "Unable to load the items " + start + " to " + (start + count), e);
+                    items = null;
+                }
+                final List<T> loadedItems = items;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPageLoaded(page, loadedItems);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPageLoaded(int page, List<T> loadedItems) {
+        mLoadingPages.delete(page);
+        if (loadedItems == null) {
+            // failed, the next read of the page loads it again
+            return;
+        }
+        int start = page * mPageSize;
+        Object[] items = new Object[Math.min(mPageSize, mSize - start)];
+        for (int i = 0; i < items.length && i < loadedItems.size(); i++) {
+            items[i] = loadedItems.get(i);
+        }
+        mPages.put(page, items);
+        evictFarPages();
+        if (mCallback != null && mPages.get(page) != null) {
+            mCallback.onItemRangeLoaded(start, items.length);
+        }
+    }
+
+    private void evictFarPages() {
+        while (mPages.size() > mMaxPages) {
+            int farthestIndex = 0;
+            for (int i = 1; i < mPages.size(); i++) {
+                if (Math.abs(mPages.keyAt(i) - mLastPageRead)
+                        > Math.abs(mPages.keyAt(farthestIndex) - mLastPageRead)) {
+                    farthestIndex = i;
+                }
+            }
+            mPages.removeAt(farthestIndex);
+        }
+    }
+
+    /**
+     * Source of the items of a {@link PagedList}.
+     *
+     * @param <T> the type of the items
+     */
+    public interface DataSource<T> {
+
+        /**
+         * Load a range of items. Called on a background thread.
+         * <p>
+         * A failure is reported by returning null or throwing a {@link RuntimeException}: the
+         * items stay placeholders, and their page is loaded again the next time one of them is
+         * read.
+         *
+         * @param position the position of the first item
+         * @param count    the number of items
+         * @return the items, the missing ones are null, or null if the loading failed
+         */
+        List<T> loadRange(int position, int count);
+    }
+
+    /**
+     * Notified of the pages loaded, on the UI thread.
+     */
+    public interface Callback {
+
+        /**
+         * The items of this range have been loaded, and replace their placeholders
+         *
+         * @param position the position of the first item
+         * @param count    the number of items
+         */
+        void onItemRangeLoaded(int position, int count);
+    }
+}
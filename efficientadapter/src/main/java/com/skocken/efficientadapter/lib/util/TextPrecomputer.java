@@ -0,0 +1,252 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.os.Build;
+import android.text.Layout;
+import android.text.PrecomputedText;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.LruCache;
+import android.util.SparseArray;
+import android.widget.TextView;
+import androidx.annotation.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Measure the texts of the next items on a background thread, before they're given to
+ * {@link ViewHelper#setText(EfficientCacheView, int, CharSequence)}, so the layout of the text
+ * views doesn't have to measure them on the UI thread.
+ * <p>
+ * From Pie, the texts are turned into {@link PrecomputedText}, set on the text views when their
+ * style matches. Before, the texts are only measured in background to fill the cache of measures
+ * of the framework.
+ * <p>
+ * The style of the text views is learned from the first text set on a view with each id: the
+ * texts of an id are not precomputed before.
+ */
+public class TextPrecomputer {
+
+    private static final int DEFAULT_MAX_SIZE = 100;
+
+    private static Executor sDefaultExecutor;
+
+    /**
+     * Precomputed texts, or the texts themselves once measured before Pie
+     */
+    private final LruCache<TextKey, CharSequence> mTexts;
+
+    /**
+     * Texts being precomputed, guarded by itself
+     */
+    private final Set<TextKey> mPendingTexts = new HashSet<>();
+
+    /**
+     * Style of the text views by id: a PrecomputedText.Params from Pie, a TextStyle before.
+     * Only used on the UI thread.
+     */
+    private final SparseArray<Object> mStyles = new SparseArray<>();
+
+    private final Executor mExecutor;
+
+    /**
+     * Precomputer keeping the last 100 texts, computed on a background thread shared by all the
+     * precomputers
+     */
+    public TextPrecomputer() {
+        this(DEFAULT_MAX_SIZE, null);
+    }
+
+    /**
+     * @param maxSize  the maximum number of precomputed texts kept
+     * @param executor the executor computing the texts, or null to use the default one (a single
+     *                 background thread shared by all the precomputers)
+     */
+    public TextPrecomputer(int maxSize, @Nullable Executor executor) {
+        mTexts = new LruCache<>(maxSize);
+        mExecutor = executor == null ? getDefaultExecutor() : executor;
+    }
+
+    private static Executor getDefaultExecutor() {
+        synchronized (TextPrecomputer.class) {
+            if (sDefaultExecutor == null) {
+                sDefaultExecutor = Executors.newSingleThreadExecutor();
+            }
+            return sDefaultExecutor;
+        }
+    }
+
+    /**
+     * Precompute the text in background, for the text views with this id. Must be called on the
+     * UI thread. The texts should be immutable, like Strings.
+     *
+     * @param viewId the id of the text views which will show the text
+     * @param text   the text
+     */
+    public void precompute(int viewId, @Nullable CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return;
+        }
+        final Object style = mStyles.get(viewId);
+        if (style == null) {
+            // the style of the text views is unknown yet
+            return;
+        }
+        final TextKey key = new TextKey(viewId, text);
+        if (mTexts.get(key) != null) {
+            return;
+        }
+        synchronized (mPendingTexts) {
+            if (!mPendingTexts.add(key)) {
+                return;
+            }
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mTexts.put(key, computeText(style, key.mText));
+                } finally {
+                    synchronized (mPendingTexts) {
+                        mPendingTexts.remove(key);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove all the precomputed texts
+     */
+    public void clear() {
+        mTexts.evictAll();
+    }
+
+    /**
+     * Get the text to set on the text view, precomputed if possible. Called on the UI thread.
+     *
+     * @param textView the text view
+     * @param viewId   the id of the text view
+     * @param text     the text to set
+     * @return the precomputed text matching the style of the text view, or the text itself
+     */
+    CharSequence getText(TextView textView, int viewId, CharSequence text) {
+        Object style = mStyles.get(viewId);
+        if (style == null) {
+            mStyles.put(viewId, getStyle(textView));
+        }
+        if (text == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.P) {
+            return text;
+        }
+        CharSequence precomputedText = mTexts.get(new TextKey(viewId, text));
+        if (!(precomputedText instanceof PrecomputedText)) {
+            return text;
+        }
+        PrecomputedText.Params params = textView.getTextMetricsParams();
+        if (!((PrecomputedText) precomputedText).getParams().equals(params)) {
+            // another style, the next texts are precomputed with this one
+            mStyles.put(viewId, params);
+            return text;
+        }
+        return precomputedText;
+    }
+
+    private static Object getStyle(TextView textView) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return textView.getTextMetricsParams();
+        }
+        int width = textView.getWidth() - textView.getTotalPaddingLeft()
+                - textView.getTotalPaddingRight();
+        if (width <= 0) {
+            width = textView.getResources().getDisplayMetrics().widthPixels;
+        }
+        return new TextStyle(textView.getPaint(), width);
+    }
+
+    private static CharSequence computeText(Object style, CharSequence text) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return PrecomputedText.create(text, (PrecomputedText.Params) style);
+        }
+        // the measures of the words are cached by the framework, for the next layout
+        TextStyle textStyle = (TextStyle) style;
+        TextPaint paint = new TextPaint(textStyle.mPaint);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            StaticLayout.Builder.obtain(text, 0, text.length(), paint, textStyle.mWidth)
+                    .setIncludePad(false)
+                    .build();
+        } else {
+            newStaticLayout(text, paint, textStyle.mWidth);
+        }
+        return text;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void newStaticLayout(CharSequence text, TextPaint paint, int width) {
+        new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false);
+    }
+
+    /**
+     * Provide the texts to precompute for an item, before it's bound.
+     *
+     * @param <T> the type of the items
+     */
+    public interface TextProvider<T> {
+
+        /**
+         * Called on the UI thread.
+         *
+         * @param item   the item
+         * @param viewId the id of a text view
+         * @return the text the view holder of the item will set on this text view, or null if
+         * there is none
+         */
+        @Nullable
+        CharSequence getText(T item, int viewId);
+    }
+
+    /**
+     * Style of the text views before Pie
+     */
+    private static class TextStyle {
+
+        private final TextPaint mPaint;
+
+        private final int mWidth;
+
+        TextStyle(TextPaint paint, int width) {
+            mPaint = new TextPaint(paint);
+            mWidth = width;
+        }
+    }
+
+    private static class TextKey {
+
+        private final int mViewId;
+
+        private final CharSequence mText;
+
+        TextKey(int viewId, CharSequence text) {
+            mViewId = viewId;
+            mText = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TextKey)) {
+                return false;
+            }
+            TextKey textKey = (TextKey) o;
+            return mViewId == textKey.mViewId && mText.equals(textKey.mText);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mViewId + mText.hashCode();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Build;
+import android.util.TypedValue;
 import androidx.annotation.ColorInt;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.Nullable;
@@ -12,6 +13,12 @@ import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+/**
+ * Helpers to update the views of an {@link EfficientCacheView}.
+ * If the cache view skips the unchanged values ({@link
+ * EfficientCacheView#setSkipUnchangedValues(boolean)}), a value equal to the last one applied on
+ * the same property of the view is not applied again.
+ */
 public class ViewHelper {
 
     /**
@@ -23,7 +30,8 @@ public class ViewHelper {
      */
     public static void setVisibility(EfficientCacheView cacheView, int viewId, int visibility) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view != null) {
+        if (view != null && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_VISIBILITY, visibility)) {
             view.setVisibility(visibility);
         }
     }
@@ -37,7 +45,8 @@ public class ViewHelper {
      */
     public static void setBackground(EfficientCacheView cacheView, int viewId, Drawable drawable) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view != null) {
+        if (view != null && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_BACKGROUND_DRAWABLE, drawable)) {
             if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
                 view.setBackgroundDrawable(drawable);
             } else {
@@ -56,7 +65,8 @@ public class ViewHelper {
     public static void setBackgroundColor(EfficientCacheView cacheView, int viewId,
             @ColorInt int color) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view != null) {
+        if (view != null && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_BACKGROUND_COLOR, color)) {
             view.setBackgroundColor(color);
         }
     }
@@ -71,7 +81,8 @@ public class ViewHelper {
     public static void setBackgroundResource(EfficientCacheView cacheView, int viewId,
             @DrawableRes int resid) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view != null) {
+        if (view != null && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_BACKGROUND_RESOURCE, resid)) {
             view.setBackgroundResource(resid);
         }
     }
@@ -106,7 +117,8 @@ public class ViewHelper {
     }
 
     /**
-     * Equivalent to calling TextView.setText
+     * Equivalent to calling TextView.setText. If the cache view has a {@link TextPrecomputer},
+     * the text is set in its precomputed version when available.
      *
      * @param cacheView The cache of views to get the view from
      * @param viewId    The id of the view whose text should change
@@ -114,8 +126,15 @@ public class ViewHelper {
      */
     public static void setText(EfficientCacheView cacheView, int viewId, CharSequence text) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view instanceof TextView) {
-            ((TextView) view).setText(text);
+        if (view instanceof TextView && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_TEXT, text)) {
+            TextPrecomputer textPrecomputer = cacheView.getTextPrecomputer();
+            if (textPrecomputer != null) {
+                TextView textView = (TextView) view;
+                textView.setText(textPrecomputer.getText(textView, viewId, text));
+            } else {
+                ((TextView) view).setText(text);
+            }
         }
     }
 
@@ -128,7 +147,8 @@ public class ViewHelper {
      */
     public static void setText(EfficientCacheView cacheView, int viewId, @StringRes int resid) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view instanceof TextView) {
+        if (view instanceof TextView && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_TEXT_RESOURCE, resid)) {
             ((TextView) view).setText(resid);
         }
     }
@@ -142,7 +162,8 @@ public class ViewHelper {
      */
     public static void setTextColor(EfficientCacheView cacheView, int viewId, @ColorInt int color) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view instanceof TextView) {
+        if (view instanceof TextView && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_TEXT_COLOR, color)) {
             ((TextView) view).setTextColor(color);
         }
     }
@@ -156,7 +177,9 @@ public class ViewHelper {
      */
     public static void setTextSize(EfficientCacheView cacheView, int viewId, float size) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view instanceof TextView) {
+        if (view instanceof TextView && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_TEXT_SIZE,
+                textSizeValue(TypedValue.COMPLEX_UNIT_SP, size))) {
             ((TextView) view).setTextSize(size);
         }
     }
@@ -171,7 +194,8 @@ public class ViewHelper {
      */
     public static void setTextSize(EfficientCacheView cacheView, int viewId, int unit, float size) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view instanceof TextView) {
+        if (view instanceof TextView && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_TEXT_SIZE, textSizeValue(unit, size))) {
             ((TextView) view).setTextSize(unit, size);
         }
     }
@@ -186,8 +210,12 @@ public class ViewHelper {
     public static void setImageResource(EfficientCacheView cacheView, int viewId,
             @DrawableRes int resId) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view instanceof ImageView) {
-            ((ImageView) view).setImageResource(resId);
+        if (view instanceof ImageView && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_IMAGE_RESOURCE, resId)) {
+            ImageView imageView = (ImageView) view;
+            cacheView.onImageChanging(imageView, viewId);
+            imageView.setImageResource(resId);
+            cacheView.onImageChanged(imageView, viewId, null);
         }
     }
 
@@ -202,13 +230,18 @@ public class ViewHelper {
     public static void setImageDrawable(EfficientCacheView cacheView, int viewId,
             Drawable drawable) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view instanceof ImageView) {
-            ((ImageView) view).setImageDrawable(drawable);
+        if (view instanceof ImageView && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_IMAGE_DRAWABLE, drawable)) {
+            ImageView imageView = (ImageView) view;
+            cacheView.onImageChanging(imageView, viewId);
+            imageView.setImageDrawable(drawable);
+            cacheView.onImageChanged(imageView, viewId, null);
         }
     }
 
     /**
-     * Equivalent to calling ImageView.setImageUri
+     * Equivalent to calling ImageView.setImageUri, or load the image asynchronously if the cache
+     * view has an {@link ImageLoader}
      *
      * @param cacheView The cache of views to get the view from
      * @param viewId    The id of the view whose image should change
@@ -216,13 +249,22 @@ public class ViewHelper {
      */
     public static void setImageUri(EfficientCacheView cacheView, int viewId, @Nullable Uri uri) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view instanceof ImageView) {
-            ((ImageView) view).setImageURI(uri);
+        if (view instanceof ImageView && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_IMAGE_URI, uri)) {
+            ImageView imageView = (ImageView) view;
+            if (cacheView.getImageLoader() != null) {
+                cacheView.loadImage(imageView, viewId, uri);
+            } else {
+                cacheView.onImageChanging(imageView, viewId);
+                imageView.setImageURI(uri);
+            }
+            cacheView.onImageChanged(imageView, viewId, null);
         }
     }
 
     /**
-     * Equivalent to calling ImageView.setImageBitmap
+     * Equivalent to calling ImageView.setImageBitmap. If the cache view has a {@link BitmapPool},
+     * the bitmap is owned by the view from now on.
      *
      * @param cacheView The cache of views to get the view from
      * @param viewId    The id of the view whose image should change
@@ -230,9 +272,19 @@ public class ViewHelper {
      */
     public static void setImageBitmap(EfficientCacheView cacheView, int viewId, Bitmap bm) {
         View view = cacheView.findViewByIdEfficient(viewId);
-        if (view instanceof ImageView) {
-            ((ImageView) view).setImageBitmap(bm);
+        if (view instanceof ImageView && !cacheView.isAlreadyApplied(view, viewId,
+                EfficientCacheView.VALUE_IMAGE_BITMAP, bm)) {
+            ImageView imageView = (ImageView) view;
+            cacheView.onImageChanging(imageView, viewId);
+            imageView.setImageBitmap(bm);
+            cacheView.onImageChanged(imageView, viewId, bm);
         }
     }
 
+    /**
+     * @return the text size and its unit, as one value
+     */
+    private static long textSizeValue(int unit, float size) {
+        return ((long) unit << 32) | (Float.floatToIntBits(size) & 0xFFFFFFFFL);
+    }
 }
@@ -0,0 +1,83 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+/**
+ * Position of the views into the hierarchy of one layout, shared by all the
+ * {@link EfficientCacheView} of the views inflated from this layout.
+ * <p>
+ * The path of a view (the index of each child from the root view) is learned the first time
+ * the view is found by id into one hierarchy. Into the other hierarchies, the view is then
+ * retrieved by following this path, instead of searching for it.
+ */
+public class ViewPathTemplate {
+
+    private final SparseArray<int[]> mPaths = new SparseArray<>();
+
+    /**
+     * Get the view with this id by following its path, if it has been learned.
+     *
+     * @param rootView the root view of the hierarchy inflated from the layout
+     * @param id       the id of the view to retrieve
+     * @return the view, or null if the path is unknown or doesn't lead to a view with this id
+     */
+    View findViewByPath(View rootView, int id) {
+        int[] path;
+        synchronized (mPaths) {
+            path = mPaths.get(id);
+        }
+        if (path == null) {
+            return null;
+        }
+        View view = rootView;
+        for (int index : path) {
+            if (!(view instanceof ViewGroup)) {
+                return null;
+            }
+            ViewGroup viewGroup = (ViewGroup) view;
+            if (index >= viewGroup.getChildCount()) {
+                return null;
+            }
+            view = viewGroup.getChildAt(index);
+        }
+        // the hierarchy may have been changed since its inflation
+        return view.getId() == id ? view : null;
+    }
+
+    /**
+     * Learn the path of a view found by id.
+     *
+     * @param rootView the root view of the hierarchy inflated from the layout
+     * @param id       the id of the view
+     * @param view     the view found into this hierarchy
+     */
+    void learnPath(View rootView, int id, View view) {
+        synchronized (mPaths) {
+            if (mPaths.get(id) != null) {
+                return;
+            }
+        }
+        int depth = 0;
+        for (View child = view; child != rootView; child = (View) child.getParent()) {
+            ViewParent parent = child.getParent();
+            if (!(parent instanceof ViewGroup)) {
+                // not into this hierarchy
+                return;
+            }
+            depth++;
+        }
+        int[] path = new int[depth];
+        View child = view;
+        for (int i = depth - 1; i >= 0; i--) {
+            ViewGroup parent = (ViewGroup) child.getParent();
+            path[i] = parent.indexOfChild(child);
+            child = parent;
+        }
+        synchronized (mPaths) {
+            mPaths.put(id, path);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.skocken.efficientadapter.lib.viewholder;
+
+import androidx.annotation.IdRes;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bind a field of an {@link EfficientViewHolder} to the view with this id.
+ * <p>
+ * With the annotation processor 'efficientadapter-processor', the field is set once by the
+ * generated {@link ViewHolderFactory}, when the view holder is created: {@code updateView} can
+ * then use the view directly, without looking for it on each bind.
+ * The field must not be private, static or final. It stays null without the annotation processor.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface BindView {
+
+    /**
+     * @return the id of the view to bind
+     */
+    @IdRes int value();
+}
@@ -1,8 +1,12 @@
 package com.skocken.efficientadapter.lib.viewholder;
 
 import com.skocken.efficientadapter.lib.adapter.EfficientAdapter;
+import com.skocken.efficientadapter.lib.util.BitmapPool;
 import com.skocken.efficientadapter.lib.util.EfficientCacheView;
+import com.skocken.efficientadapter.lib.util.ImageLoader;
+import com.skocken.efficientadapter.lib.util.TextPrecomputer;
 import com.skocken.efficientadapter.lib.util.ViewHelper;
+import com.skocken.efficientadapter.lib.util.ViewPathTemplate;
 
 import android.content.Context;
 import android.content.res.Resources;
@@ -18,6 +22,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import android.view.View;
 
 import java.lang.ref.WeakReference;
+import java.util.List;
 
 public abstract class EfficientViewHolder<T> extends RecyclerView.ViewHolder {
 
@@ -43,10 +48,86 @@ public abstract class EfficientViewHolder<T> extends RecyclerView.ViewHolder {
         mCacheView = createCacheView(itemView);
     }
 
+    /**
+     * @param itemView   the root view of the view holder. This parameter cannot be null.
+     * @param indexViews true to index all the views with an id now, in one pass over the
+     *                   hierarchy, instead of looking for each view on its first use. Useful for
+     *                   the layouts with a lot of views used on each bind.
+     *
+     * @throws NullPointerException if the view is null
+     */
+    public EfficientViewHolder(View itemView, boolean indexViews) {
+        super(itemView);
+        mCacheView = indexViews ? new EfficientCacheView(itemView, true)
+                : createCacheView(itemView);
+    }
+
     EfficientCacheView createCacheView(View itemView) {
         return new EfficientCacheView(itemView);
     }
 
+    /**
+     * Helper for {@link EfficientCacheView#setViewPathTemplate(ViewPathTemplate)}
+     */
+    public void setViewPathTemplate(@Nullable ViewPathTemplate viewPathTemplate) {
+        mCacheView.setViewPathTemplate(viewPathTemplate);
+    }
+
+    /**
+     * Helper for {@link EfficientCacheView#setSkipUnchangedValues(boolean)}: the setters of this
+     * view holder then skip the values already applied on the views, for example on a rebind
+     * where most of the fields are identical.
+     */
+    public void setSkipUnchangedValues(boolean skipUnchangedValues) {
+        mCacheView.setSkipUnchangedValues(skipUnchangedValues);
+    }
+
+    /**
+     * Helper for {@link EfficientCacheView#clearAppliedValues()}
+     */
+    public void clearAppliedValues() {
+        mCacheView.clearAppliedValues();
+    }
+
+    /**
+     * Helper for {@link EfficientCacheView#setImageLoader(ImageLoader)}: the images given to
+     * {@link #setImageUri(int, Uri)} are then loaded by this loader, and the loads in progress are
+     * cancelled (and the images released) when the view holder is recycled.
+     */
+    public void setImageLoader(@Nullable ImageLoader imageLoader) {
+        mCacheView.setImageLoader(imageLoader);
+    }
+
+    /**
+     * Helper for {@link EfficientCacheView#cancelImageLoads()}
+     */
+    public void cancelImageLoads() {
+        mCacheView.cancelImageLoads();
+    }
+
+    /**
+     * Helper for {@link EfficientCacheView#setBitmapPool(BitmapPool)}: the bitmaps given to
+     * {@link #setImageBitmap(int, Bitmap)} are then put into the pool when the view holder is
+     * recycled.
+     */
+    public void setBitmapPool(@Nullable BitmapPool bitmapPool) {
+        mCacheView.setBitmapPool(bitmapPool);
+    }
+
+    /**
+     * Helper for {@link EfficientCacheView#releaseImages()}
+     */
+    public void releaseImages() {
+        mCacheView.releaseImages();
+    }
+
+    /**
+     * Helper for {@link EfficientCacheView#setTextPrecomputer(TextPrecomputer)}
+     */
+    public void setTextPrecomputer(@Nullable TextPrecomputer textPrecomputer) {
+        mCacheView.setTextPrecomputer(textPrecomputer);
+    }
+
     public void setAdapter(EfficientAdapter<T> adapter) {
         if (adapter != getAdapter()) {
             mAdapterRef = new WeakReference<>(adapter);
@@ -69,6 +150,23 @@ public abstract class EfficientViewHolder<T> extends RecyclerView.ViewHolder {
         updateView(mCacheView.getView().getContext(), mObject);
     }
 
+    /**
+     * Method called when we need to update the view hold by this class, with the description of
+     * what changed since the last bind of this item.
+     *
+     * @param item     the object subject of this update
+     * @param payloads the payloads of the changes, empty for a full update
+     */
+    public void onBindView(@Nullable T item, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindView(item, position);
+            return;
+        }
+        mObject = item;
+        mLastBindPosition = position;
+        updateView(mCacheView.getView().getContext(), mObject, payloads);
+    }
+
     /**
      * Method called when we need to update the view hold by this class.
      *
@@ -77,6 +175,23 @@ public abstract class EfficientViewHolder<T> extends RecyclerView.ViewHolder {
      */
     protected abstract void updateView(@NonNull Context context, @Nullable T item);
 
+    /**
+     * Method called when we need to update the view hold by this class, with the payloads given
+     * by {@link com.skocken.efficientadapter.lib.util.AdapterUpdater.ItemComparator#getChangePayload(
+     * Object, Object)}. Override it to update only the views impacted by these changes.
+     * <p>
+     * The default implementation ignores the payloads and calls
+     * {@link #updateView(Context, Object)}.
+     *
+     * @param context  context of the root view
+     * @param item     the object subject of this update
+     * @param payloads the payloads of the changes, empty for a full update
+     */
+    protected void updateView(@NonNull Context context, @Nullable T item,
+                              @NonNull List<Object> payloads) {
+        updateView(context, item);
+    }
+
     /**
      * Get the last object set to this viewholder
      */
@@ -129,7 +244,8 @@ public abstract class EfficientViewHolder<T> extends RecyclerView.ViewHolder {
     }
 
     /**
-     * Called when a view created by the adapter has been recycled.
+     * Called when a view created by the adapter has been recycled. The images have already been
+     * released (see {@link #releaseImages()}).
      */
     public void onViewRecycled() {
     }
@@ -368,7 +484,8 @@ public abstract class EfficientViewHolder<T> extends RecyclerView.ViewHolder {
     }
 
     /**
-     * Equivalent to calling ImageView.setImageUri
+     * Equivalent to calling ImageView.setImageUri, or load the image asynchronously if this view
+     * holder has an {@link ImageLoader}
      *
      * @param viewId The id of the view whose image should change
      * @param uri    the Uri of an image, or {@code null} to clear the content
@@ -378,7 +495,8 @@ public abstract class EfficientViewHolder<T> extends RecyclerView.ViewHolder {
     }
 
     /**
-     * Equivalent to calling ImageView.setImageBitmap
+     * Equivalent to calling ImageView.setImageBitmap. If this view holder has a
+     * {@link BitmapPool}, the bitmap is owned by the view from now on.
      *
      * @param viewId The id of the view whose image should change
      * @param bm     The bitmap to set
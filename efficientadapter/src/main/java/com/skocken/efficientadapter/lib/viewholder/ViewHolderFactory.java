@@ -0,0 +1,33 @@
+package com.skocken.efficientadapter.lib.viewholder;
+
+import com.skocken.efficientadapter.lib.adapter.EfficientAdapter;
+
+import android.view.View;
+
+import androidx.annotation.LayoutRes;
+
+/**
+ * Create the instances of one {@link EfficientViewHolder} class.
+ * <p>
+ * The implementations are generated by the annotation processor for the view holders annotated
+ * with {@link ViewHolderLayout} or with {@link BindView} fields: the factory of
+ * {@code com.example.BookViewHolder} is {@code com.example.BookViewHolder_Factory}.
+ */
+public interface ViewHolderFactory {
+
+    /**
+     * Create a new view holder, with its {@link BindView} fields set.
+     *
+     * @param adapter  the adapter creating this view holder, used as the enclosing instance of an
+     *                 inner class
+     * @param itemView the root view of the view holder
+     * @return the new view holder
+     */
+    EfficientViewHolder<?> create(EfficientAdapter<?> adapter, View itemView);
+
+    /**
+     * @return the layout declared by {@link ViewHolderLayout}, or 0 if unknown
+     */
+    @LayoutRes
+    int getLayoutResId();
+}
@@ -0,0 +1,27 @@
+package com.skocken.efficientadapter.lib.viewholder;
+
+import androidx.annotation.LayoutRes;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declare the layout of an {@link EfficientViewHolder}.
+ * <p>
+ * With the annotation processor 'efficientadapter-processor', a {@link ViewHolderFactory} is
+ * generated for each annotated view holder, and used by the adapters instead of looking for the
+ * constructor by reflection.
+ * The view holder and its constructor with a {@link android.view.View} must not be private.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface ViewHolderLayout {
+
+    /**
+     * @return the layout of the view holder, used if the adapter doesn't give one for this view
+     * type.
+     */
+    @LayoutRes int value();
+}
@@ -1,12 +1,38 @@
 package com.skocken.efficientadapter.lib.adapter;
 
+import android.content.Context;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import com.skocken.efficientadapter.lib.util.AdapterUpdater;
+import com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder;
+import com.skocken.efficientadapter.lib.viewholder.ViewHolderFactory;
+
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 
 public class AdapterHelperTest {
 
+    private static final AdapterUpdater.KeyProvider<String> FIRST_LETTER_KEY_PROVIDER =
+            new AdapterUpdater.KeyProvider<String>() {
+                @Override
+                public Object getKey(String item) {
+                    return item.charAt(0);
+                }
+            };
+
     @Test
     public void testIsAssignableFrom_Correct() throws Exception {
         Class<?>[] params = new Class[]{Vehicle.class, Car.class, Dog.class};
@@ -26,6 +52,219 @@ public class AdapterHelperTest {
                                                    Vehicle.class, Car.class, Car.class));
     }
 
+    @Test
+    public void testGetViewHolderConstructor_Single() throws Exception {
+        AdapterHelper.ViewHolderConstructor viewHolderConstructor =
+                (AdapterHelper.ViewHolderConstructor) AdapterHelper.getViewHolderFactory(
+                        SingleViewHolder.class);
+        assertFalse(viewHolderConstructor.mWithAdapter);
+        assertEquals(SingleViewHolder.class, viewHolderConstructor.mConstructor.getDeclaringClass());
+    }
+
+    @Test
+    public void testGetViewHolderConstructor_InnerClass() throws Exception {
+        AdapterHelper.ViewHolderConstructor viewHolderConstructor =
+                (AdapterHelper.ViewHolderConstructor) AdapterHelper.getViewHolderFactory(
+                        TestAdapter.InnerViewHolder.class);
+        assertTrue(viewHolderConstructor.mWithAdapter);
+    }
+
+    @Test
+    public void testGetViewHolderConstructor_Cached() throws Exception {
+        assertSame(AdapterHelper.getViewHolderFactory(SingleViewHolder.class),
+                   AdapterHelper.getViewHolderFactory(SingleViewHolder.class));
+    }
+
+    @Test
+    public void testGetViewHolderFactory_Generated() throws Exception {
+        ViewHolderFactory viewHolderFactory =
+                AdapterHelper.getViewHolderFactory(GeneratedViewHolder.class);
+        assertTrue(viewHolderFactory instanceof GeneratedViewHolder_Factory);
+        assertEquals(42, viewHolderFactory.getLayoutResId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetViewHolderConstructor_NoViewConstructor() throws Exception {
+        AdapterHelper.getViewHolderFactory(Vehicle.class);
+    }
+
+    @Test
+    public void testGetItemId() throws Exception {
+        AdapterHelper<String> adapterHelper = new AdapterHelper<>(
+                new ArrayList<>(Arrays.asList("a1", "b1", "a2")));
+        adapterHelper.setKeyProvider(FIRST_LETTER_KEY_PROVIDER);
+        long idA = adapterHelper.getItemId(0);
+        long idB = adapterHelper.getItemId(1);
+        assertEquals(idA, adapterHelper.getItemId(2));
+        assertFalse(idA == idB);
+
+        adapterHelper.removeAt(0);
+        assertEquals(idB, adapterHelper.getItemId(0));
+        assertEquals(idA, adapterHelper.getItemId(1));
+    }
+
+    @Test
+    public void testGetItemId_removedKeys() throws Exception {
+        AdapterHelper<String> adapterHelper = new AdapterHelper<>(
+                new ArrayList<>(Arrays.asList("a")));
+        adapterHelper.setKeyProvider(new AdapterUpdater.KeyProvider<String>() {
+            @Override
+            public Object getKey(String item) {
+                return item;
+            }
+        });
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            adapterHelper.set(0, "item" + i);
+            // never the id of a previous key
+            assertTrue(ids.add(adapterHelper.getItemId(0)));
+        }
+    }
+
+    @Test
+    public void testGetItemId_noKeyProvider() throws Exception {
+        AdapterHelper<String> adapterHelper = new AdapterHelper<>(
+                new ArrayList<>(Arrays.asList("a")));
+        assertEquals(-1, adapterHelper.getItemId(0));
+    }
+
+    @Test
+    public void testRetainAll() throws Exception {
+        AdapterHelper<Integer> adapterHelper = new AdapterHelper<>(
+                new ArrayList<>(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8)));
+        int[] removedRanges = adapterHelper.retainAll(new EfficientAdapter.Predicate<Integer>() {
+            @Override
+            public boolean apply(Integer item) {
+                return item != 1 && item != 2 && item != 5 && item != 7 && item != 8;
+            }
+        });
+        assertEquals(Arrays.asList(0, 3, 4, 6), adapterHelper.getObjects());
+        // positions after the removal of the previous ranges
+        assertTrue(Arrays.equals(new int[]{1, 2, 3, 1, 4, 2}, removedRanges));
+    }
+
+    @Test
+    public void testRetainAll_nothingRemoved() throws Exception {
+        AdapterHelper<Integer> adapterHelper = new AdapterHelper<>(
+                new ArrayList<>(Arrays.asList(0, 1, 2)));
+        int[] removedRanges = adapterHelper.retainAll(new EfficientAdapter.Predicate<Integer>() {
+            @Override
+            public boolean apply(Integer item) {
+                return true;
+            }
+        });
+        assertEquals(0, removedRanges.length);
+        assertEquals(Arrays.asList(0, 1, 2), adapterHelper.getObjects());
+    }
+
+    @Test
+    public void testRemoveAll() throws Exception {
+        AdapterHelper<String> adapterHelper = new AdapterHelper<>(
+                new ArrayList<>(Arrays.asList("a", "b", "a", "c")));
+        int[] removedRanges = adapterHelper.removeAll(Arrays.asList("a", "z"));
+        assertEquals(Arrays.asList("b", "c"), adapterHelper.getObjects());
+        assertTrue(Arrays.equals(new int[]{0, 1, 1, 1}, removedRanges));
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        AdapterHelper<String> adapterHelper = new AdapterHelper<>(
+                new ArrayList<>(Arrays.asList("a", "b", "c", "d")));
+        adapterHelper.setIndexEnabled(true);
+        assertEquals(2, adapterHelper.indexOf("c"));
+        assertEquals(-1, adapterHelper.indexOf("z"));
+
+        adapterHelper.set(2, "z");
+        assertEquals(2, adapterHelper.indexOf("z"));
+        assertFalse(adapterHelper.hasItem("c"));
+
+        adapterHelper.add(0, "c");
+        assertEquals(0, adapterHelper.indexOf("c"));
+        assertEquals(3, adapterHelper.indexOf("z"));
+
+        assertEquals(1, adapterHelper.remove("a"));
+        assertEquals(Arrays.asList("c", "b", "z", "d"), adapterHelper.getObjects());
+        assertEquals(3, adapterHelper.indexOf("d"));
+    }
+
+    @Test
+    public void testIndex_randomOperations() throws Exception {
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        AdapterHelper<Integer> adapterHelper = new AdapterHelper<>(new ArrayList<Integer>());
+        adapterHelper.setIndexEnabled(true);
+        for (int i = 0; i < 3000; i++) {
+            int size = expected.size();
+            // few values, to have duplicates
+            Integer value = random.nextInt(50);
+            switch (random.nextInt(5)) {
+                case 0:
+                    int position = random.nextInt(size + 1);
+                    expected.add(position, value);
+                    adapterHelper.add(position, value);
+                    break;
+                case 1:
+                    expected.add(value);
+                    adapterHelper.add(value);
+                    break;
+                case 2:
+                    if (size > 0) {
+                        position = random.nextInt(size);
+                        expected.remove(position);
+                        adapterHelper.removeAt(position);
+                    }
+                    break;
+                case 3:
+                    if (size > 0) {
+                        position = random.nextInt(size);
+                        expected.set(position, value);
+                        adapterHelper.set(position, value);
+                    }
+                    break;
+                case 4:
+                    if (size > 1) {
+                        int from = random.nextInt(size);
+                        int to = random.nextInt(size);
+                        expected.add(to, expected.remove(from));
+                        adapterHelper.move(from, to);
+                    }
+                    break;
+            }
+            Integer searched = random.nextInt(60);
+            assertEquals(expected.indexOf(searched), adapterHelper.indexOf(searched));
+        }
+        assertEquals(expected, adapterHelper.getObjects());
+    }
+
+    private static class SingleViewHolder extends EfficientViewHolder<Object> {
+
+        public SingleViewHolder(View itemView) {
+            super(itemView);
+        }
+
+        @Override
+        protected void updateView(@NonNull Context context, Object item) {
+        }
+    }
+
+    private static class TestAdapter extends EfficientRecyclerAdapter<Object> {
+
+        TestAdapter() {
+            super(new ArrayList<>());
+        }
+
+        private class InnerViewHolder extends EfficientViewHolder<Object> {
+
+            public InnerViewHolder(View itemView) {
+                super(itemView);
+            }
+
+            @Override
+            protected void updateView(@NonNull Context context, Object item) {
+            }
+        }
+    }
+
     private static class Vehicle {
 
     }
@@ -41,4 +280,31 @@ public class AdapterHelperTest {
     private static class Dog extends Animal {
 
     }
-}
\ No newline at end of file
+}
+
+/**
+ * View holder with a factory, as generated by the annotation processor.
+ */
+class GeneratedViewHolder extends EfficientViewHolder<Object> {
+
+    GeneratedViewHolder(View itemView) {
+        super(itemView);
+    }
+
+    @Override
+    protected void updateView(@NonNull Context context, Object item) {
+    }
+}
+
+class GeneratedViewHolder_Factory implements ViewHolderFactory {
+
+    @Override
+    public EfficientViewHolder<?> create(EfficientAdapter<?> adapter, View itemView) {
+        return new GeneratedViewHolder(itemView);
+    }
+
+    @Override
+    public int getLayoutResId() {
+        return 42;
+    }
+}
@@ -0,0 +1,213 @@
+package com.skocken.efficientadapter.lib.adapter;
+
+import android.content.Context;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import androidx.viewpager.widget.PagerAdapter;
+
+import com.skocken.efficientadapter.lib.util.AdapterUpdater;
+import com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.O_MR1)
+public class EfficientPagerAdapterTest extends TestCase {
+
+    // the items with the same first letter are the same element
+    private static final AdapterUpdater.ItemComparator<String> FIRST_LETTER_COMPARATOR =
+            new AdapterUpdater.ItemComparator<String>() {
+                @Override
+                public Object getKey(String item) {
+                    return item.charAt(0);
+                }
+
+                @Override
+                public boolean areContentsTheSame(String previousItem, String newItem) {
+                    return previousItem.equals(newItem);
+                }
+
+                @Override
+                public Object getChangePayload(String previousItem, String newItem) {
+                    return null;
+                }
+            };
+
+    private final List<TestViewHolder> mPages = new ArrayList<>();
+
+    private final List<Integer> mPagePositions = new ArrayList<>();
+
+    private EfficientPagerAdapter<String> mSubject;
+
+    private ViewGroup mContainer;
+
+    private int mNotifyCount;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mContainer = new FrameLayout(RuntimeEnvironment.application);
+        mSubject = new EfficientPagerAdapter<String>(
+                new ArrayList<>(Arrays.asList("a", "b", "c", "d"))) {
+            @Override
+            public EfficientViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+                return new TestViewHolder(new View(parent.getContext()));
+            }
+
+            @Override
+            public void notifyDataSetChanged() {
+                super.notifyDataSetChanged();
+                // what the ViewPager does with its pages
+                mNotifyCount++;
+                mPagePositions.clear();
+                for (TestViewHolder page : mPages) {
+                    mPagePositions.add(getItemPosition(page));
+                }
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            mPages.add((TestViewHolder) mSubject.instantiateItem(mContainer, i));
+        }
+    }
+
+    @Test
+    public void testAdd() throws Exception {
+        resetBindCounts();
+        mSubject.add(3, "e");
+
+        assertEquals(Arrays.asList(PagerAdapter.POSITION_UNCHANGED,
+                PagerAdapter.POSITION_UNCHANGED, PagerAdapter.POSITION_UNCHANGED),
+                mPagePositions);
+        assertBindCounts(0, 0, 0);
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        resetBindCounts();
+        mSubject.removeAt(0);
+
+        assertEquals(Arrays.asList(PagerAdapter.POSITION_NONE, 0, 1), mPagePositions);
+        assertBindCounts(0, 1, 1);
+        assertEquals(0, mPages.get(1).getLastBindPosition());
+    }
+
+    @Test
+    public void testNotifyItemChanged() throws Exception {
+        resetBindCounts();
+        mSubject.notifyItemChanged(1);
+        mSubject.notifyItemChanged(3);
+
+        assertEquals(0, mNotifyCount);
+        assertBindCounts(0, 1, 0);
+    }
+
+    @Test
+    public void testUpdateWith() throws Exception {
+        mSubject.setItemComparator(FIRST_LETTER_COMPARATOR);
+        resetBindCounts();
+        mSubject.updateWith(Arrays.asList("z", "a", "b2", "c", "d"));
+
+        assertEquals(1, mNotifyCount);
+        assertEquals(Arrays.asList(1, 2, 3), mPagePositions);
+        assertEquals("b2", mPages.get(1).getObject());
+    }
+
+    @Test
+    public void testUpdateWith_onlyChangedPage() throws Exception {
+        mSubject.setItemComparator(FIRST_LETTER_COMPARATOR);
+        resetBindCounts();
+        mSubject.updateWith(Arrays.asList("a", "b2", "c", "d2"));
+
+        assertEquals(1, mNotifyCount);
+        assertEquals(Arrays.asList(PagerAdapter.POSITION_UNCHANGED,
+                PagerAdapter.POSITION_UNCHANGED, PagerAdapter.POSITION_UNCHANGED),
+                mPagePositions);
+        assertBindCounts(0, 1, 0);
+    }
+
+    @Test
+    public void testUpdateWith_noChange() throws Exception {
+        mSubject.setItemComparator(FIRST_LETTER_COMPARATOR);
+        mSubject.updateWith(Arrays.asList("a", "b", "c", "d"));
+        assertEquals(0, mNotifyCount);
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        resetBindCounts();
+        mSubject.beginBatch();
+        mSubject.add(0, "z");
+        mSubject.set(2, "b2");
+        mSubject.removeAt(4);
+        mSubject.notifyItemChanged(3);
+        assertEquals(0, mNotifyCount);
+
+        mSubject.commit();
+        assertEquals(1, mNotifyCount);
+        assertEquals(Arrays.asList(1, 2, 3), mPagePositions);
+        assertEquals("b2", mPages.get(1).getObject());
+        assertBindCounts(1, 1, 1);
+    }
+
+    @Test
+    public void testAdd_duplicateItems() throws Exception {
+        mSubject.set(1, "a");
+        assertEquals("a", mPages.get(1).getObject());
+
+        mSubject.add(0, "z");
+        // each page keeps its own item
+        assertEquals(Arrays.asList(1, 2, 3), mPagePositions);
+        assertEquals(1, mPages.get(0).getLastBindPosition());
+        assertEquals(2, mPages.get(1).getLastBindPosition());
+    }
+
+    @Test
+    public void testRemove_duplicateItems() throws Exception {
+        mSubject.set(1, "a");
+        mSubject.removeAt(2);
+        mSubject.removeAt(0);
+        // a single item left for both pages
+        assertEquals(Arrays.asList(PagerAdapter.POSITION_UNCHANGED, PagerAdapter.POSITION_NONE,
+                PagerAdapter.POSITION_NONE), mPagePositions);
+    }
+
+    private void resetBindCounts() {
+        for (TestViewHolder page : mPages) {
+            page.mBindCount = 0;
+        }
+    }
+
+    private void assertBindCounts(int... bindCounts) {
+        for (int i = 0; i < bindCounts.length; i++) {
+            assertEquals("page " + i, bindCounts[i], mPages.get(i).mBindCount);
+        }
+    }
+
+    private static class TestViewHolder extends EfficientViewHolder<String> {
+
+        private int mBindCount;
+
+        TestViewHolder(View itemView) {
+            super(itemView);
+        }
+
+        @Override
+        protected void updateView(Context context, String object) {
+            mBindCount++;
+        }
+    }
+}
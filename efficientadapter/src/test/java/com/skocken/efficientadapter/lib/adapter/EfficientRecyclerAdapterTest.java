@@ -0,0 +1,348 @@
+package com.skocken.efficientadapter.lib.adapter;
+
+import android.content.Context;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.skocken.efficientadapter.lib.util.AdapterUpdater;
+import com.skocken.efficientadapter.lib.util.PagedList;
+import com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.O_MR1)
+public class EfficientRecyclerAdapterTest extends TestCase {
+
+    private final List<String> mNotifications = new ArrayList<>();
+
+    private EfficientRecyclerAdapter<String> mSubject;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mSubject = new EfficientRecyclerAdapter<>(
+                new ArrayList<>(Arrays.asList("a", "b", "c", "d", "e")));
+        mSubject.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+                mNotifications.add("changed " + positionStart + "," + itemCount);
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                mNotifications.add("inserted " + positionStart + "," + itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                mNotifications.add("removed " + positionStart + "," + itemCount);
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                mNotifications.add("moved " + fromPosition + "," + toPosition);
+            }
+        });
+    }
+
+    @Test
+    public void testAddAll() throws Exception {
+        mSubject.addAll(Arrays.asList("f", "g"));
+        mSubject.addAll(1, Arrays.asList("x", "y", "z"));
+        assertEquals(Arrays.asList("inserted 5,2", "inserted 1,3"), mNotifications);
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        mSubject.clear();
+        assertEquals(Arrays.asList("removed 0,5"), mNotifications);
+    }
+
+    @Test
+    public void testRetainAll() throws Exception {
+        mSubject.retainAll(new EfficientAdapter.Predicate<String>() {
+            @Override
+            public boolean apply(String item) {
+                return !item.equals("b") && !item.equals("c") && !item.equals("e");
+            }
+        });
+        assertEquals(Arrays.asList("a", "d"), mSubject.getObjects());
+        assertEquals(Arrays.asList("removed 1,2", "removed 2,1"), mNotifications);
+    }
+
+    @Test
+    public void testBatch_insertions() throws Exception {
+        mSubject.beginBatch();
+        mSubject.add("f");
+        mSubject.add("g");
+        mSubject.add(5, "h");
+        mSubject.removeAt(6);
+        mSubject.set(5, "i");
+        assertTrue(mNotifications.isEmpty());
+
+        mSubject.commit();
+        assertEquals(Arrays.asList("i", "g"), mSubject.getObjects().subList(5, 7));
+        assertEquals(Arrays.asList("inserted 5,2"), mNotifications);
+    }
+
+    @Test
+    public void testBatch_removalsAndChanges() throws Exception {
+        mSubject.beginBatch();
+        mSubject.removeAt(3);
+        mSubject.removeAt(2);
+        mSubject.removeAt(2);
+        mSubject.set(0, "x");
+        mSubject.set(1, "y");
+        mSubject.move(0, 1);
+        mSubject.commit();
+        assertEquals(Arrays.asList("removed 2,3", "changed 0,2", "moved 0,1"), mNotifications);
+    }
+
+    @Test
+    public void testBatch_insertedThenRemoved() throws Exception {
+        mSubject.beginBatch();
+        mSubject.add(2, "x");
+        mSubject.remove("x");
+        mSubject.commit();
+        assertTrue(mNotifications.isEmpty());
+    }
+
+    @Test
+    public void testBatch_nested() throws Exception {
+        mSubject.beginBatch();
+        mSubject.add("f");
+        mSubject.beginBatch();
+        mSubject.add("g");
+        mSubject.commit();
+        assertTrue(mNotifications.isEmpty());
+        mSubject.commit();
+        assertEquals(Arrays.asList("inserted 5,2"), mNotifications);
+    }
+
+    @Test
+    public void testStableIds() throws Exception {
+        assertFalse(mSubject.hasStableIds());
+        assertEquals(RecyclerView.NO_ID, mSubject.getItemId(0));
+
+        mSubject.setKeyProvider(new AdapterUpdater.KeyProvider<String>() {
+            @Override
+            public Object getKey(String item) {
+                return item.charAt(0);
+            }
+        });
+        assertTrue(mSubject.hasStableIds());
+        long idB = mSubject.getItemId(1);
+        mSubject.updateWith(Arrays.asList("b2", "c", "a"));
+        assertEquals(idB, mSubject.getItemId(0));
+
+        mSubject.setKeyProvider(null);
+        assertFalse(mSubject.hasStableIds());
+    }
+
+    @Test
+    public void testStableIds_pagedListPlaceholders() throws Exception {
+        PagedList<String> pagedList = new PagedList<>(new PagedList.DataSource<String>() {
+            @Override
+            public List<String> loadRange(int position, int count) {
+                List<String> items = new ArrayList<>();
+                for (int i = position; i < position + count; i++) {
+                    items.add("item" + i);
+                }
+                return items;
+            }
+        }, 20, 10, 2, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        EfficientRecyclerAdapter<String> adapter = new EfficientRecyclerAdapter<>(pagedList);
+        adapter.setKeyProvider(new AdapterUpdater.KeyProvider<String>() {
+            @Override
+            public Object getKey(String item) {
+                return item.substring(4);
+            }
+        });
+        ShadowLooper.pauseMainLooper();
+        assertNull(adapter.get(2));
+        long placeholderId = adapter.getItemId(2);
+        assertTrue(placeholderId < RecyclerView.NO_ID);
+        assertFalse(placeholderId == adapter.getItemId(3));
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        long itemId = adapter.getItemId(2);
+        assertTrue(itemId >= 0);
+        assertEquals(itemId, adapter.getItemId(2));
+    }
+
+    @Test
+    public void testPagedList() throws Exception {
+        PagedList<String> pagedList = new PagedList<>(new PagedList.DataSource<String>() {
+            @Override
+            public List<String> loadRange(int position, int count) {
+                return Collections.nCopies(count, "item");
+            }
+        }, 100, 10, 3, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        EfficientRecyclerAdapter<String> adapter = new EfficientRecyclerAdapter<>(pagedList);
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+                mNotifications.add("changed " + positionStart + "," + itemCount);
+            }
+        });
+        assertEquals(100, adapter.size());
+        ShadowLooper.pauseMainLooper();
+        assertNull(adapter.get(2));
+        assertTrue(mNotifications.isEmpty());
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(Arrays.asList("changed 0,10"), mNotifications);
+        assertEquals("item", adapter.get(2));
+    }
+
+    @Test
+    public void testOnBindViewHolder_fullBindThroughOverride() throws Exception {
+        final List<Integer> fullBinds = new ArrayList<>();
+        EfficientRecyclerAdapter<String> adapter = new EfficientRecyclerAdapter<String>(
+                new ArrayList<>(Arrays.asList("a", "b"))) {
+            @Override
+            public void onBindViewHolder(EfficientViewHolder<String> viewHolder, int position) {
+                fullBinds.add(position);
+                super.onBindViewHolder(viewHolder, position);
+            }
+        };
+        TestViewHolder viewHolder = new TestViewHolder(new View(RuntimeEnvironment.application));
+
+        adapter.onBindViewHolder(viewHolder, 1, Collections.emptyList());
+        assertEquals(Arrays.asList(1), fullBinds);
+        assertEquals("b", viewHolder.getObject());
+
+        adapter.onBindViewHolder(viewHolder, 0, Collections.<Object>singletonList("payload"));
+        assertEquals(Arrays.asList(1), fullBinds);
+        assertEquals("a", viewHolder.getObject());
+    }
+
+    @Test
+    public void testPrewarmViewHolders_raisesFullPool() throws Exception {
+        TestRecycledViewPool pool = prewarmViewHolders(null, 8);
+        assertEquals(8, pool.mRecycledViewCount);
+        assertEquals(8, pool.mMaxRecycledViews);
+    }
+
+    @Test
+    public void testPrewarmViewHolders_keepsLargerPool() throws Exception {
+        TestRecycledViewPool pool = prewarmViewHolders(20, 8);
+        assertEquals(8, pool.mRecycledViewCount);
+        assertEquals(20, pool.mMaxRecycledViews);
+    }
+
+    private TestRecycledViewPool prewarmViewHolders(Integer maxRecycledViews, int count) {
+        EfficientRecyclerAdapter<String> adapter = new EfficientRecyclerAdapter<String>() {
+            @Override
+            public EfficientViewHolder<String> onCreateViewHolder(ViewGroup parent,
+                    int viewType) {
+                return new TestViewHolder(new View(parent.getContext()));
+            }
+        };
+        adapter.setUpdateExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        TestRecycledViewPool pool = new TestRecycledViewPool();
+        if (maxRecycledViews != null) {
+            pool.setMaxRecycledViews(0, maxRecycledViews);
+        }
+        RecyclerView recyclerView = new RecyclerView(RuntimeEnvironment.application);
+        recyclerView.setRecycledViewPool(pool);
+        adapter.prewarmViewHolders(recyclerView, 0, count);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        return pool;
+    }
+
+    @Test
+    public void testSetIndexEnabled_pagedList() throws Exception {
+        PagedList<String> pagedList = new PagedList<>(new PagedList.DataSource<String>() {
+            @Override
+            public List<String> loadRange(int position, int count) {
+                return Collections.nCopies(count, "item");
+            }
+        }, 100, 10);
+        EfficientRecyclerAdapter<String> adapter = new EfficientRecyclerAdapter<>(pagedList);
+        adapter.setIndexEnabled(false);
+        try {
+            adapter.setIndexEnabled(true);
+            fail("A PagedList can't be indexed");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        // still searched one by one, without loading the pages
+        assertEquals(-1, adapter.indexOf("item"));
+        assertFalse(pagedList.isLoaded(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommit_noBatch() throws Exception {
+        mSubject.commit();
+    }
+
+    // pool of a single view type, with the default capacity of RecyclerView
+    private static class TestRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+        private int mMaxRecycledViews = 5;
+
+        private int mRecycledViewCount;
+
+        @Override
+        public void setMaxRecycledViews(int viewType, int max) {
+            mMaxRecycledViews = max;
+        }
+
+        @Override
+        public int getRecycledViewCount(int viewType) {
+            return mRecycledViewCount;
+        }
+
+        @Override
+        public void putRecycledView(RecyclerView.ViewHolder scrap) {
+            if (mRecycledViewCount < mMaxRecycledViews) {
+                mRecycledViewCount++;
+            }
+        }
+    }
+
+    private static class TestViewHolder extends EfficientViewHolder<String> {
+
+        TestViewHolder(View itemView) {
+            super(itemView);
+        }
+
+        @Override
+        protected void updateView(Context context, String object) {
+        }
+    }
+}
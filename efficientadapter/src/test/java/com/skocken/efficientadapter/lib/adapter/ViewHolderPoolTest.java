@@ -0,0 +1,80 @@
+package com.skocken.efficientadapter.lib.adapter;
+
+import android.os.Build;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.O_MR1)
+public class ViewHolderPoolTest extends TestCase {
+
+    @Test
+    public void testAcquire_lastReleased() throws Exception {
+        ViewHolderPool<String> subject = new ViewHolderPool<>(3);
+        assertNull(subject.acquire(0));
+        assertNull(subject.release(0, "a"));
+        assertNull(subject.release(0, "b"));
+        assertNull(subject.release(1, "c"));
+
+        assertEquals("b", subject.acquire(0));
+        assertEquals("a", subject.acquire(0));
+        assertNull(subject.acquire(0));
+        assertEquals("c", subject.acquire(1));
+    }
+
+    @Test
+    public void testRelease_full() throws Exception {
+        ViewHolderPool<String> subject = new ViewHolderPool<>(2);
+        subject.release(0, "a");
+        subject.release(0, "b");
+        assertEquals("a", subject.release(0, "c"));
+        assertEquals(2, subject.size(0));
+        // the other view types have their own capacity
+        assertNull(subject.release(1, "d"));
+    }
+
+    @Test
+    public void testSetMaxSize() throws Exception {
+        ViewHolderPool<String> subject = new ViewHolderPool<>(3);
+        subject.release(0, "a");
+        subject.release(0, "b");
+        subject.release(0, "c");
+
+        List<String> dropped = new ArrayList<>();
+        subject.setMaxSize(0, 1, dropped);
+        assertEquals(Arrays.asList("a", "b"), dropped);
+        assertEquals("c", subject.acquire(0));
+
+        subject.setMaxSize(1, 0, dropped);
+        assertEquals("d", subject.release(1, "d"));
+    }
+
+    @Test
+    public void testTrim() throws Exception {
+        ViewHolderPool<String> subject = new ViewHolderPool<>(4);
+        subject.release(0, "a");
+        subject.release(0, "b");
+        subject.release(0, "c");
+        subject.release(0, "d");
+        subject.release(1, "e");
+
+        List<String> dropped = new ArrayList<>();
+        subject.trim(0.5f, dropped);
+        assertEquals(Arrays.asList("a", "b", "e"), dropped);
+        assertEquals(2, subject.size(0));
+
+        dropped.clear();
+        subject.trim(0f, dropped);
+        assertEquals(Arrays.asList("c", "d"), dropped);
+        assertEquals(0, subject.size(0));
+    }
+}
@@ -6,7 +6,9 @@ import org.mockito.Mockito;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static junit.framework.Assert.assertEquals;
 import static org.mockito.Matchers.eq;
@@ -107,6 +109,155 @@ public class AdapterUpdaterTest {
         assertUpdateWith(newList(E, B, D, C, A));
     }
 
+    @Test
+    public void testUpdate_sameOperationsForAllAlgorithms() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            List<String> previousList = randomList(random);
+            List<String> newList = randomList(random);
+
+            RecordUpdater linearScan = new RecordUpdater(previousList);
+            new AdapterUpdater<>(linearScan, AdapterUpdater.Algorithm.LINEAR_SCAN).update(newList);
+
+            RecordUpdater hashIndex = new RecordUpdater(previousList);
+            new AdapterUpdater<>(hashIndex, AdapterUpdater.Algorithm.HASH_INDEX).update(newList);
+
+            assertEquals(linearScan.getOperations(), hashIndex.getOperations());
+            assertEquals(linearScan.getObjects(), hashIndex.getObjects());
+        }
+    }
+
+    @Test
+    public void testCalculate_sameOperationsAsUpdate() throws Exception {
+        Random random = new Random(42);
+        for (AdapterUpdater.Algorithm algorithm : AdapterUpdater.Algorithm.values()) {
+            for (int i = 0; i < 1000; i++) {
+                List<String> previousList = randomList(random);
+                List<String> newList = randomList(random);
+
+                RecordUpdater updated = new RecordUpdater(previousList);
+                new AdapterUpdater<>(updated, algorithm).update(newList);
+
+                RecordUpdater dispatched = new RecordUpdater(previousList);
+                EditScript<String> editScript = AdapterUpdater.calculate(previousList, newList, algorithm);
+                editScript.dispatchTo(dispatched);
+
+                assertEquals(updated.getOperations(), dispatched.getOperations());
+                assertEquals(updated.getObjects(), dispatched.getObjects());
+            }
+        }
+    }
+
+    @Test
+    public void testCalculate_doesNotModifyLists() throws Exception {
+        List<String> previousList = newList(A, B, C, D, E);
+        List<String> newList = newList(E, C, F);
+
+        for (AdapterUpdater.Algorithm algorithm : AdapterUpdater.Algorithm.values()) {
+            AdapterUpdater.calculate(previousList, newList, algorithm);
+
+            assertEquals(newList(A, B, C, D, E), previousList);
+            assertEquals(newList(E, C, F), newList);
+        }
+    }
+
+    @Test
+    public void testCalculate_rangedOperations() throws Exception {
+        for (AdapterUpdater.Algorithm algorithm : AdapterUpdater.Algorithm.values()) {
+            RecordCallback callback = new RecordCallback();
+            AdapterUpdater.calculate(newList(A, B, C, D, E), newList(A, F, B, E), algorithm)
+                    .dispatchTo(callback);
+
+            assertEquals(Arrays.asList("changed 0 2", "changed 4 1", "removed 2 2",
+                                       "inserted 1 [F]"),
+                         callback.getOperations());
+        }
+    }
+
+    @Test
+    public void testCalculate_move() throws Exception {
+        for (AdapterUpdater.Algorithm algorithm : AdapterUpdater.Algorithm.values()) {
+            RecordCallback callback = new RecordCallback();
+            AdapterUpdater.calculate(newList(A, B, C, D), newList(D, A, B, C), algorithm)
+                    .dispatchTo(callback);
+
+            assertEquals(Arrays.asList("changed 0 4", "moved 3 0"), callback.getOperations());
+        }
+    }
+
+    @Test
+    public void testCalculate_itemComparator() throws Exception {
+        RecordCallback callback = new RecordCallback();
+        AdapterUpdater.calculate(newList("A1", "B1", "C1"), newList("C1", "A2", "B1", "D1"),
+                new FirstLetterComparator()).dispatchTo(callback);
+
+        assertEquals(Arrays.asList("moved 2 0", "inserted 3 [D1]", "replaced 1 [A2]",
+                "changed 1 1"), callback.getOperations());
+    }
+
+    @Test
+    public void testCalculate_changePayload() throws Exception {
+        RecordCallback callback = new RecordCallback();
+        AdapterUpdater.calculate(newList("A1", "B1", "C1", "D1"), newList("A2", "B2", "C1", "D2"),
+                new VersionPayloadComparator()).dispatchTo(callback);
+
+        assertEquals(Arrays.asList("replaced 0 [A2, B2]", "replaced 3 [D2]",
+                "changed 0 1 v2", "changed 1 1 v2", "changed 3 1 v2"), callback.getOperations());
+    }
+
+    @Test
+    public void testCalculate_itemComparatorKeepsNewItems() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            List<String> previousList = randomVersionedList(random);
+            List<String> newList = randomVersionedList(random);
+            FakeUpdater updated = new FakeUpdater();
+            updated.getObjects().addAll(previousList);
+
+            AdapterUpdater.calculate(previousList, newList, new FirstLetterComparator())
+                    .dispatchTo(updated);
+
+            assertEquals(newList, updated.getObjects());
+        }
+    }
+
+    @Test
+    public void testUpdate_largeShuffle() throws Exception {
+        updater = Mockito.spy(new FakeUpdater());
+        underTest = new AdapterUpdater<>(updater);
+        int size = 20000;
+        for (int i = 0; i < size; i++) {
+            updater.getObjects().add(String.valueOf(i));
+        }
+        List<String> newList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            newList.add(String.valueOf((i * 7919) % size));
+        }
+        assertUpdateWith(newList);
+    }
+
+    private List<String> randomList(Random random) {
+        String[] values = {A, B, C, D, E, F};
+        int size = random.nextInt(10);
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(values[random.nextInt(values.length)]);
+        }
+        return list;
+    }
+
+    private List<String> randomVersionedList(Random random) {
+        // unique keys, as a list of elements identified by an id
+        List<String> list = new ArrayList<>();
+        for (char key = 'A'; key <= 'H'; key++) {
+            if (random.nextBoolean()) {
+                list.add(key + String.valueOf(random.nextInt(2)));
+            }
+        }
+        Collections.shuffle(list, random);
+        return list;
+    }
+
     private void assertUpdateWith(List<String> newList) {
         underTest.update(newList);
 
@@ -159,4 +310,94 @@ public class AdapterUpdaterTest {
         }
     }
 
+    private static class RecordUpdater extends FakeUpdater {
+
+        private final List<String> mOperations = new ArrayList<>();
+
+        RecordUpdater(List<String> objects) {
+            getObjects().addAll(objects);
+        }
+
+        List<String> getOperations() {
+            return mOperations;
+        }
+
+        @Override
+        public void notifyItemChanged(int i) {
+            mOperations.add("changed " + i);
+        }
+
+        @Override
+        public void removeAt(int i) {
+            mOperations.add("removeAt " + i);
+            super.removeAt(i);
+        }
+
+        @Override
+        public void add(int i, String item) {
+            mOperations.add("add " + i + " " + item);
+            super.add(i, item);
+        }
+    }
+
+    private static class RecordCallback implements EditScript.Callback<String> {
+
+        private final List<String> mOperations = new ArrayList<>();
+
+        List<String> getOperations() {
+            return mOperations;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            mOperations.add("changed " + position + " " + count
+                    + (payload == null ? "" : " " + payload));
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mOperations.add("removed " + position + " " + count);
+        }
+
+        @Override
+        public void onInserted(int position, List<String> items) {
+            mOperations.add("inserted " + position + " " + items);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mOperations.add("moved " + fromPosition + " " + toPosition);
+        }
+
+        @Override
+        public void onReplaced(int position, List<String> items) {
+            mOperations.add("replaced " + position + " " + items);
+        }
+    }
+
+    private static class FirstLetterComparator implements AdapterUpdater.ItemComparator<String> {
+
+        @Override
+        public Object getKey(String item) {
+            return item.charAt(0);
+        }
+
+        @Override
+        public boolean areContentsTheSame(String previousItem, String newItem) {
+            return previousItem.equals(newItem);
+        }
+
+        @Override
+        public Object getChangePayload(String previousItem, String newItem) {
+            return null;
+        }
+    }
+
+    private static class VersionPayloadComparator extends FirstLetterComparator {
+
+        @Override
+        public Object getChangePayload(String previousItem, String newItem) {
+            return "v" + newItem.substring(1);
+        }
+    }
 }
\ No newline at end of file
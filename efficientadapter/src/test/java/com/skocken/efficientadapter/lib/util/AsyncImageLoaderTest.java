@@ -0,0 +1,160 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.net.Uri;
+import android.os.Build;
+import android.widget.ImageView;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.O_MR1)
+public class AsyncImageLoaderTest extends TestCase {
+
+    private static final Uri URI_1 = Uri.parse("content://images/1");
+
+    private static final Uri URI_2 = Uri.parse("content://images/2");
+
+    private final List<Runnable> mPendingTasks = new ArrayList<>();
+
+    private final List<Uri> mDecodedUris = new ArrayList<>();
+
+    private AsyncImageLoader mSubject;
+
+    private ImageView mImageView;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mSubject = new AsyncImageLoader(1024 * 1024, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mPendingTasks.add(command);
+            }
+        }) {
+            @Override
+            protected Bitmap decodeBitmap(Context context, Uri uri, int targetWidth,
+                    int targetHeight) {
+                mDecodedUris.add(uri);
+                return Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+            }
+        };
+        mImageView = new ImageView(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        mSubject.load(mImageView, URI_1);
+        assertNull(mImageView.getDrawable());
+        runPendingTasks();
+        assertNotNull(getBitmap());
+        assertEquals(1, mDecodedUris.size());
+    }
+
+    @Test
+    public void testLoad_fromCache() throws Exception {
+        mSubject.load(mImageView, URI_1);
+        runPendingTasks();
+        Bitmap bitmap = getBitmap();
+
+        ImageView otherImageView = new ImageView(RuntimeEnvironment.application);
+        mSubject.load(otherImageView, URI_1);
+        assertTrue(mPendingTasks.isEmpty());
+        assertSame(bitmap, ((BitmapDrawable) otherImageView.getDrawable()).getBitmap());
+        assertEquals(1, mDecodedUris.size());
+    }
+
+    @Test
+    public void testLoad_replacePreviousLoad() throws Exception {
+        mSubject.load(mImageView, URI_1);
+        mSubject.load(mImageView, URI_2);
+        runPendingTasks();
+        assertEquals(1, mDecodedUris.size());
+        assertEquals(URI_2, mDecodedUris.get(0));
+        assertNotNull(getBitmap());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        assertFalse(mSubject.cancel(mImageView));
+        mSubject.load(mImageView, URI_1);
+        assertTrue(mSubject.cancel(mImageView));
+        runPendingTasks();
+        assertNull(mImageView.getDrawable());
+        assertTrue(mDecodedUris.isEmpty());
+    }
+
+    @Test
+    public void testBitmapPool_removedFromCache() throws Exception {
+        BitmapPool bitmapPool = new BitmapPool(1024 * 1024);
+        mSubject.setBitmapPool(bitmapPool);
+        mSubject.load(mImageView, URI_1);
+        runPendingTasks();
+        Bitmap bitmap = getBitmap();
+
+        // still into the cache
+        mSubject.release(mImageView);
+        assertNull(mImageView.getDrawable());
+        assertEquals(0, bitmapPool.getSize());
+
+        mSubject.clearCache();
+        assertSame(bitmap, bitmapPool.get(10, 10, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void testBitmapPool_displayed() throws Exception {
+        BitmapPool bitmapPool = new BitmapPool(1024 * 1024);
+        mSubject.setBitmapPool(bitmapPool);
+        mSubject.load(mImageView, URI_1);
+        runPendingTasks();
+        Bitmap bitmap = getBitmap();
+        ImageView otherImageView = new ImageView(RuntimeEnvironment.application);
+        mSubject.load(otherImageView, URI_1);
+
+        mSubject.clearCache();
+        mSubject.release(mImageView);
+        assertEquals(0, bitmapPool.getSize());
+        // not displayed anymore
+        mSubject.load(otherImageView, URI_2);
+        assertSame(bitmap, bitmapPool.get(10, 10, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void testCalculateInSampleSize() throws Exception {
+        assertEquals(1, AsyncImageLoader.calculateInSampleSize(100, 100, 100, 100));
+        assertEquals(1, AsyncImageLoader.calculateInSampleSize(100, 100, 200, 200));
+        assertEquals(2, AsyncImageLoader.calculateInSampleSize(400, 400, 150, 150));
+        assertEquals(4, AsyncImageLoader.calculateInSampleSize(400, 400, 100, 100));
+        // both dimensions must stay large enough
+        assertEquals(2, AsyncImageLoader.calculateInSampleSize(1600, 400, 100, 200));
+    }
+
+    private void runPendingTasks() {
+        List<Runnable> tasks = new ArrayList<>(mPendingTasks);
+        mPendingTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    private Bitmap getBitmap() {
+        BitmapDrawable drawable = (BitmapDrawable) mImageView.getDrawable();
+        return drawable == null ? null : drawable.getBitmap();
+    }
+}
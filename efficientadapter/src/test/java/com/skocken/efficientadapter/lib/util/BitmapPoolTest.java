@@ -0,0 +1,78 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.O_MR1)
+public class BitmapPoolTest extends TestCase {
+
+    // 10x10 ARGB_8888 bitmaps
+    private static final int BITMAP_SIZE = 400;
+
+    @Test
+    public void testGet_smallestLargeEnough() throws Exception {
+        BitmapPool subject = new BitmapPool(10 * BITMAP_SIZE);
+        Bitmap large = newBitmap(20, 20);
+        Bitmap medium = newBitmap(10, 10);
+        Bitmap small = newBitmap(5, 5);
+        subject.put(large);
+        subject.put(medium);
+        subject.put(small);
+
+        assertSame(medium, subject.get(8, 8, Bitmap.Config.ARGB_8888));
+        assertSame(large, subject.get(8, 8, Bitmap.Config.ARGB_8888));
+        assertNull(subject.get(8, 8, Bitmap.Config.ARGB_8888));
+        // fewer bytes per pixel
+        assertSame(small, subject.get(5, 10, Bitmap.Config.RGB_565));
+        assertEquals(0, subject.getSize());
+    }
+
+    @Test
+    public void testPut_maxSize() throws Exception {
+        BitmapPool subject = new BitmapPool(2 * BITMAP_SIZE);
+        Bitmap first = newBitmap(10, 10);
+        Bitmap second = newBitmap(10, 10);
+        Bitmap third = newBitmap(10, 10);
+        subject.put(first);
+        subject.put(second);
+        subject.put(second);
+        assertEquals(2 * BITMAP_SIZE, subject.getSize());
+
+        // the oldest one is dropped
+        subject.put(third);
+        assertEquals(2 * BITMAP_SIZE, subject.getSize());
+        assertNotSame(first, subject.get(10, 10, Bitmap.Config.ARGB_8888));
+        assertNotSame(first, subject.get(10, 10, Bitmap.Config.ARGB_8888));
+        assertNull(subject.get(10, 10, Bitmap.Config.ARGB_8888));
+
+        subject.put(newBitmap(20, 20));
+        assertEquals(0, subject.getSize());
+    }
+
+    @Test
+    public void testPut_notReusable() throws Exception {
+        BitmapPool subject = new BitmapPool(10 * BITMAP_SIZE);
+        subject.put(null);
+        subject.put(newBitmap(10, 10).copy(Bitmap.Config.ARGB_8888, false));
+        Bitmap recycled = newBitmap(10, 10);
+        recycled.recycle();
+        subject.put(recycled);
+        assertEquals(0, subject.getSize());
+
+        subject.put(newBitmap(10, 10));
+        subject.clear();
+        assertEquals(0, subject.getSize());
+    }
+
+    private static Bitmap newBitmap(int width, int height) {
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+}
@@ -0,0 +1,87 @@
+package com.skocken.efficientadapter.lib.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Testing class
+ */
+public class CircularArrayListTest {
+
+    @Test
+    public void testAddAtHeadAndTail() throws Exception {
+        List<Integer> list = new CircularArrayList<Integer>(4);
+        for (int i = 0; i < 20; i++) {
+            list.add(0, -i);
+            list.add(i);
+        }
+        assertEquals(40, list.size());
+        assertEquals(-19, (int) list.get(0));
+        assertEquals(19, (int) list.get(39));
+
+        list.remove(0);
+        list.remove(list.size() - 1);
+        assertEquals(-18, (int) list.get(0));
+        assertEquals(18, (int) list.get(37));
+    }
+
+    @Test
+    public void testSubListClear() throws Exception {
+        List<Integer> list = new CircularArrayList<Integer>(4);
+        for (int i = 0; i < 30; i++) {
+            list.add(i);
+        }
+        list.subList(2, 27).clear();
+        assertEquals(Arrays.asList(0, 1, 27, 28, 29), list);
+    }
+
+    @Test
+    public void testRandomOperations() throws Exception {
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        List<Integer> list = new CircularArrayList<Integer>(4);
+        for (int i = 0; i < 5000; i++) {
+            int size = expected.size();
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    int position = random.nextInt(size + 1);
+                    expected.add(position, i);
+                    list.add(position, i);
+                    break;
+                case 2:
+                    if (size > 0) {
+                        position = random.nextInt(size);
+                        assertEquals(expected.remove(position), list.remove(position));
+                    }
+                    break;
+                case 3:
+                    if (size > 0) {
+                        position = random.nextInt(size);
+                        assertEquals(expected.set(position, i), list.set(position, i));
+                    }
+                    break;
+                case 4:
+                    position = random.nextInt(size + 1);
+                    List<Integer> items = Arrays.asList(i, i + 1, i + 2);
+                    expected.addAll(position, items);
+                    list.addAll(position, items);
+                    break;
+                case 5:
+                    int from = random.nextInt(size + 1);
+                    int to = from + random.nextInt(Math.min(size - from, 10) + 1);
+                    expected.subList(from, to).clear();
+                    list.subList(from, to).clear();
+                    break;
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        assertEquals(expected, list);
+    }
+}
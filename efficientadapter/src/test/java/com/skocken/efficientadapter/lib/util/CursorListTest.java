@@ -0,0 +1,111 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import junit.framework.TestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.O_MR1)
+public class CursorListTest extends TestCase {
+
+    private final List<Integer> mMappedRows = new ArrayList<>();
+
+    private SQLiteDatabase mDatabase;
+
+    private Cursor mCursor;
+
+    private CursorList<Row> mSubject;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mDatabase = SQLiteDatabase.create(null);
+        mDatabase.execSQL("CREATE TABLE book (id INTEGER PRIMARY KEY, title TEXT)");
+        for (int i = 0; i < 50; i++) {
+            mDatabase.execSQL("INSERT INTO book (id, title) VALUES (?, ?)",
+                    new Object[]{i, "title" + i});
+        }
+        mCursor = mDatabase.rawQuery("SELECT id, title FROM book ORDER BY id", null);
+        mSubject = new CursorList<>(mCursor, new CursorList.RowMapper<Row>() {
+            @Override
+            public Row mapRow(Cursor cursor, Row recycledItem) {
+                Row row = recycledItem == null ? new Row() : recycledItem;
+                row.mId = cursor.getInt(0);
+                row.mTitle = cursor.getString(1);
+                mMappedRows.add(row.mId);
+                return row;
+            }
+        }, 10);
+    }
+
+    @After
+    @Override
+    public void tearDown() throws Exception {
+        mCursor.close();
+        mDatabase.close();
+        super.tearDown();
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        assertEquals(50, mSubject.size());
+        Row row = mSubject.get(12);
+        assertEquals(12, row.mId);
+        assertEquals("title12", row.mTitle);
+        assertSame(row, mSubject.get(12));
+        assertEquals(1, mMappedRows.size());
+    }
+
+    @Test
+    public void testGet_reuseItemsOutOfWindow() throws Exception {
+        Row row = mSubject.get(3);
+        Row otherRow = mSubject.get(12);
+        assertNotSame(row, otherRow);
+        // 10 rows after
+        assertSame(row, mSubject.get(13));
+        assertEquals(13, row.mId);
+        assertEquals(3, mMappedRows.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGet_outOfBounds() throws Exception {
+        mSubject.get(50);
+    }
+
+    @Test
+    public void testIndexOf_windowOnly() throws Exception {
+        Row row = mSubject.get(7);
+        assertEquals(7, mSubject.indexOf(row));
+        assertEquals(-1, mSubject.indexOf(new Row()));
+        assertEquals(1, mMappedRows.size());
+    }
+
+    @Test
+    public void testToArray() throws Exception {
+        Row row = mSubject.get(0);
+        Object[] rows = mSubject.toArray();
+        assertEquals(50, rows.length);
+        assertEquals(49, ((Row) rows[49]).mId);
+        assertNotSame(row, rows[0]);
+    }
+
+    private static class Row {
+
+        private int mId;
+
+        private String mTitle;
+    }
+}
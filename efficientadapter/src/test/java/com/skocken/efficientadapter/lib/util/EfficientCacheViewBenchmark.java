@@ -0,0 +1,79 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.content.Context;
+import android.os.Build;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.logging.Logger;
+
+/**
+ * Micro-benchmark of the lookups of {@link EfficientCacheView}, when the views have been retrieved
+ * through a lot of parent ids.
+ * Run it manually, the time per lookup is logged for each number of parents.
+ */
+@Ignore("Benchmark, run it manually")
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.O_MR1)
+public class EfficientCacheViewBenchmark {
+
+    private static final int ID_PARENT_OFFSET = 1000;
+
+    private static final int ID_CHILD_OFFSET = 100000;
+
+    private static final int NB_LOOKUPS = 2000000;
+
+    private static final Logger LOGGER =
+            Logger.getLogger(EfficientCacheViewBenchmark.class.getName());
+
+    @Test
+    public void benchmarkFindViewByIdAfterParentLookups() throws Exception {
+        for (int nbParents : new int[]{1, 10, 100, 1000}) {
+            EfficientCacheView cacheView = newCacheView(nbParents);
+            // the views are cached with their parent id
+            for (int i = 0; i < nbParents; i++) {
+                cacheView.findViewByIdEfficient(ID_PARENT_OFFSET + i, ID_CHILD_OFFSET + i);
+            }
+            // warm up, then measure the lookups with the child id only
+            lookupChildren(cacheView, nbParents, NB_LOOKUPS / 10);
+            long start = System.nanoTime();
+            lookupChildren(cacheView, nbParents, NB_LOOKUPS);
+            long duration = System.nanoTime() - start;
+            LOGGER.info(nbParents + " parents: " + (duration / NB_LOOKUPS)
+                                + " ns per findViewByIdEfficient(id)");
+        }
+    }
+
+    private void lookupChildren(EfficientCacheView cacheView, int nbParents, int nbLookups) {
+        for (int i = 0; i < nbLookups; i++) {
+            View view = cacheView.findViewByIdEfficient(ID_CHILD_OFFSET + i % nbParents);
+            if (view == null) {
+                throw new AssertionError();
+            }
+        }
+    }
+
+    /**
+     * @return a cache of a hierarchy with nbParents parents, each with its own child
+     */
+    private EfficientCacheView newCacheView(int nbParents) {
+        Context context = RuntimeEnvironment.application;
+        FrameLayout rootView = new FrameLayout(context);
+        for (int i = 0; i < nbParents; i++) {
+            FrameLayout parent = new FrameLayout(context);
+            parent.setId(ID_PARENT_OFFSET + i);
+            View child = new View(context);
+            child.setId(ID_CHILD_OFFSET + i);
+            parent.addView(child);
+            rootView.addView(parent);
+        }
+        return new EfficientCacheView(rootView);
+    }
+}
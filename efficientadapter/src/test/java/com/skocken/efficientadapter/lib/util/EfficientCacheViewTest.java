@@ -1,7 +1,15 @@
 package com.skocken.efficientadapter.lib.util;
 
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
 import android.os.Build;
+import android.text.SpannableStringBuilder;
+import android.util.TypedValue;
 import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.TextView;
 
 import junit.framework.TestCase;
 
@@ -9,8 +17,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
 import static org.mockito.Matchers.anyInt;
@@ -162,4 +172,225 @@ public class EfficientCacheViewTest extends TestCase {
         verify(mRootView, times(2)).findViewById(anyInt());
         verify(mViewParent1, times(3)).findViewById(anyInt());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReturnChildOfParentWithoutSearch() throws Exception {
+        assertEquals(mViewParent2Child1, mSubject.findViewByIdEfficient(ID_PARENT_2, ID_CHILD_1));
+        verify(mRootView, times(1)).findViewById(anyInt());
+        // already found into a parent
+        assertEquals(mViewParent2Child1, mSubject.findViewByIdEfficient(ID_CHILD_1));
+        verify(mRootView, times(1)).findViewById(anyInt());
+        mSubject.clearViewCached(ID_PARENT_2, ID_CHILD_1);
+        assertEquals(mViewParent1Child1, mSubject.findViewByIdEfficient(ID_CHILD_1));
+        verify(mRootView, times(2)).findViewById(anyInt());
+    }
+
+    @Test
+    public void testIndexViews() throws Exception {
+        Context context = RuntimeEnvironment.application;
+        FrameLayout rootView = Mockito.spy(newHierarchy(context));
+        FrameLayout viewParent1 = (FrameLayout) rootView.getChildAt(0);
+        FrameLayout viewParent2 = (FrameLayout) rootView.getChildAt(1);
+
+        EfficientCacheView subject = new EfficientCacheView(rootView, true);
+
+        assertEquals(rootView, subject.findViewByIdEfficient(ID_ROOT_VIEW));
+        assertEquals(viewParent1, subject.findViewByIdEfficient(ID_PARENT_1));
+        assertEquals(viewParent2, subject.findViewByIdEfficient(ID_PARENT_2));
+        // same as findViewById: the first view with this id
+        assertEquals(viewParent1.getChildAt(0), subject.findViewByIdEfficient(ID_CHILD_1));
+        assertEquals(viewParent1.getChildAt(1), subject.findViewByIdEfficient(ID_CHILD_2));
+        verify(rootView, times(0)).findViewById(anyInt());
+
+        assertEquals(viewParent2.getChildAt(0),
+                     subject.findViewByIdEfficient(ID_PARENT_2, ID_CHILD_1));
+    }
+
+    @Test
+    public void testViewPathTemplate() throws Exception {
+        ViewPathTemplate viewPathTemplate = new ViewPathTemplate();
+        Context context = RuntimeEnvironment.application;
+
+        FrameLayout firstRootView = newHierarchy(context);
+        EfficientCacheView firstSubject = new EfficientCacheView(firstRootView);
+        firstSubject.setViewPathTemplate(viewPathTemplate);
+        assertEquals(firstRootView.findViewById(ID_CHILD_2),
+                     firstSubject.findViewByIdEfficient(ID_CHILD_2));
+
+        FrameLayout secondRootView = Mockito.spy(newHierarchy(context));
+        EfficientCacheView secondSubject = new EfficientCacheView(secondRootView);
+        secondSubject.setViewPathTemplate(viewPathTemplate);
+        View expectedView = ((FrameLayout) secondRootView.getChildAt(0)).getChildAt(1);
+        assertEquals(expectedView, secondSubject.findViewByIdEfficient(ID_CHILD_2));
+        verify(secondRootView, times(0)).findViewById(anyInt());
+        // not learned yet
+        assertEquals(secondRootView.getChildAt(1),
+                     secondSubject.findViewByIdEfficient(ID_PARENT_2));
+        verify(secondRootView, times(1)).findViewById(anyInt());
+    }
+
+    @Test
+    public void testViewPathTemplate_differentHierarchy() throws Exception {
+        ViewPathTemplate viewPathTemplate = new ViewPathTemplate();
+        Context context = RuntimeEnvironment.application;
+
+        EfficientCacheView firstSubject = new EfficientCacheView(newHierarchy(context));
+        firstSubject.setViewPathTemplate(viewPathTemplate);
+        firstSubject.findViewByIdEfficient(ID_CHILD_2);
+
+        // the learned path doesn't exist anymore into this hierarchy
+        FrameLayout secondRootView = newHierarchy(context);
+        FrameLayout viewParent1 = (FrameLayout) secondRootView.getChildAt(0);
+        viewParent1.removeViewAt(1);
+        View expectedView = secondRootView.findViewById(ID_CHILD_2);
+        EfficientCacheView secondSubject = new EfficientCacheView(secondRootView);
+        secondSubject.setViewPathTemplate(viewPathTemplate);
+        assertEquals(expectedView, secondSubject.findViewByIdEfficient(ID_CHILD_2));
+    }
+
+    @Test
+    public void testSkipUnchangedValues() throws Exception {
+        mSubject.setSkipUnchangedValues(true);
+        assertTrue(mSubject.isSkipUnchangedValues());
+
+        ViewHelper.setVisibility(mSubject, ID_CHILD_1, View.GONE);
+        ViewHelper.setVisibility(mSubject, ID_CHILD_1, View.GONE);
+        verify(mViewParent1Child1, times(1)).setVisibility(View.GONE);
+        ViewHelper.setVisibility(mSubject, ID_CHILD_1, View.VISIBLE);
+        verify(mViewParent1Child1, times(1)).setVisibility(View.VISIBLE);
+
+        // the values of the same property replace each other
+        ViewHelper.setBackgroundColor(mSubject, ID_CHILD_1, 42);
+        ViewHelper.setBackgroundResource(mSubject, ID_CHILD_1, 42);
+        ViewHelper.setBackgroundColor(mSubject, ID_CHILD_1, 42);
+        verify(mViewParent1Child1, times(2)).setBackgroundColor(42);
+        verify(mViewParent1Child1, times(1)).setBackgroundResource(42);
+
+        // the values of a view are not applied to another view with the same id
+        ViewHelper.setVisibility(mSubject, ID_PARENT_1, View.GONE);
+        ViewHelper.setVisibility(mSubject, ID_PARENT_1, View.GONE);
+        verify(mViewParent1, times(1)).setVisibility(View.GONE);
+        mSubject.clearViewsCached();
+        when(mRootView.findViewById(eq(ID_PARENT_1))).thenReturn(mViewParent2);
+        ViewHelper.setVisibility(mSubject, ID_PARENT_1, View.GONE);
+        verify(mViewParent2, times(1)).setVisibility(View.GONE);
+    }
+
+    @Test
+    public void testSkipUnchangedValues_text() throws Exception {
+        TextView textView = Mockito.mock(TextView.class);
+        when(mRootView.findViewById(eq(ID_CHILD_1))).thenReturn(textView);
+        mSubject.setSkipUnchangedValues(true);
+
+        ViewHelper.setText(mSubject, ID_CHILD_1, "text");
+        ViewHelper.setText(mSubject, ID_CHILD_1, new String("text"));
+        verify(textView, times(1)).setText("text");
+
+        // may have been modified since the last time
+        SpannableStringBuilder builder = new SpannableStringBuilder("text");
+        ViewHelper.setText(mSubject, ID_CHILD_1, builder);
+        ViewHelper.setText(mSubject, ID_CHILD_1, builder);
+        verify(textView, times(2)).setText(builder);
+
+        ViewHelper.setTextSize(mSubject, ID_CHILD_1, 12);
+        ViewHelper.setTextSize(mSubject, ID_CHILD_1, TypedValue.COMPLEX_UNIT_SP, 12);
+        verify(textView, times(1)).setTextSize(12);
+        verify(textView, times(0)).setTextSize(TypedValue.COMPLEX_UNIT_SP, 12);
+        ViewHelper.setTextSize(mSubject, ID_CHILD_1, TypedValue.COMPLEX_UNIT_PX, 12);
+        verify(textView, times(1)).setTextSize(TypedValue.COMPLEX_UNIT_PX, 12);
+    }
+
+    @Test
+    public void testSkipUnchangedValues_disabled() throws Exception {
+        assertFalse(mSubject.isSkipUnchangedValues());
+        ViewHelper.setVisibility(mSubject, ID_CHILD_1, View.GONE);
+        ViewHelper.setVisibility(mSubject, ID_CHILD_1, View.GONE);
+        verify(mViewParent1Child1, times(2)).setVisibility(View.GONE);
+
+        mSubject.setSkipUnchangedValues(true);
+        ViewHelper.setVisibility(mSubject, ID_CHILD_1, View.GONE);
+        mSubject.clearAppliedValues();
+        ViewHelper.setVisibility(mSubject, ID_CHILD_1, View.GONE);
+        verify(mViewParent1Child1, times(4)).setVisibility(View.GONE);
+    }
+
+    @Test
+    public void testImageLoader() throws Exception {
+        ImageView imageView = Mockito.mock(ImageView.class);
+        when(mRootView.findViewById(eq(ID_CHILD_1))).thenReturn(imageView);
+        ImageLoader imageLoader = Mockito.mock(ImageLoader.class);
+        mSubject.setImageLoader(imageLoader);
+        Uri uri = Uri.parse("content://images/1");
+
+        ViewHelper.setImageUri(mSubject, ID_CHILD_1, uri);
+        verify(imageLoader).load(imageView, uri);
+        verify(imageView, times(0)).setImageURI(uri);
+
+        // the load must not replace this bitmap
+        Bitmap bitmap = Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
+        ViewHelper.setImageBitmap(mSubject, ID_CHILD_1, bitmap);
+        verify(imageLoader).release(imageView);
+        verify(imageView).setImageBitmap(bitmap);
+    }
+
+    @Test
+    public void testBitmapPool() throws Exception {
+        ImageView imageView = Mockito.mock(ImageView.class);
+        when(mRootView.findViewById(eq(ID_CHILD_1))).thenReturn(imageView);
+        BitmapPool bitmapPool = new BitmapPool(1024);
+        mSubject.setBitmapPool(bitmapPool);
+        Bitmap bitmap1 = Bitmap.createBitmap(4, 4, Bitmap.Config.ARGB_8888);
+        Bitmap bitmap2 = Bitmap.createBitmap(4, 4, Bitmap.Config.ARGB_8888);
+
+        ViewHelper.setImageBitmap(mSubject, ID_CHILD_1, bitmap1);
+        ViewHelper.setImageBitmap(mSubject, ID_CHILD_1, bitmap1);
+        assertEquals(0, bitmapPool.getSize());
+        // replaced by another bitmap
+        ViewHelper.setImageBitmap(mSubject, ID_CHILD_1, bitmap2);
+        assertSame(bitmap1, bitmapPool.get(4, 4, Bitmap.Config.ARGB_8888));
+
+        mSubject.releaseImages();
+        verify(imageView).setImageDrawable(null);
+        assertSame(bitmap2, bitmapPool.get(4, 4, Bitmap.Config.ARGB_8888));
+        mSubject.releaseImages();
+        assertEquals(0, bitmapPool.getSize());
+    }
+
+    @Test
+    public void testCancelImageLoads() throws Exception {
+        ImageView imageView = Mockito.mock(ImageView.class);
+        when(mRootView.findViewById(eq(ID_CHILD_1))).thenReturn(imageView);
+        ImageLoader imageLoader = Mockito.mock(ImageLoader.class);
+        when(imageLoader.cancel(imageView)).thenReturn(true);
+        mSubject.setImageLoader(imageLoader);
+        mSubject.setSkipUnchangedValues(true);
+        Uri uri = Uri.parse("content://images/1");
+
+        ViewHelper.setImageUri(mSubject, ID_CHILD_1, uri);
+        mSubject.cancelImageLoads();
+        verify(imageLoader).cancel(imageView);
+        // the image has not been loaded, the same uri is not skipped
+        ViewHelper.setImageUri(mSubject, ID_CHILD_1, uri);
+        verify(imageLoader, times(2)).load(imageView, uri);
+    }
+
+    private FrameLayout newHierarchy(Context context) {
+        FrameLayout rootView = new FrameLayout(context);
+        rootView.setId(ID_ROOT_VIEW);
+        rootView.addView(newParent(context, ID_PARENT_1));
+        rootView.addView(newParent(context, ID_PARENT_2));
+        return rootView;
+    }
+
+    private FrameLayout newParent(Context context, int id) {
+        FrameLayout parent = new FrameLayout(context);
+        parent.setId(id);
+        View child1 = new View(context);
+        child1.setId(ID_CHILD_1);
+        parent.addView(child1);
+        View child2 = new View(context);
+        child2.setId(ID_CHILD_2);
+        parent.addView(child2);
+        return parent;
+    }
+}
@@ -0,0 +1,144 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.os.Build;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.O_MR1)
+public class PagedListTest extends TestCase {
+
+    private final List<Runnable> mPendingTasks = new ArrayList<>();
+
+    private final List<Integer> mLoadedPositions = new ArrayList<>();
+
+    private final List<String> mLoadedRanges = new ArrayList<>();
+
+    private PagedList<Integer> mSubject;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mSubject = new PagedList<>(new PagedList.DataSource<Integer>() {
+            @Override
+            public List<Integer> loadRange(int position, int count) {
+                mLoadedPositions.add(position);
+                List<Integer> items = new ArrayList<>();
+                for (int i = position; i < position + count; i++) {
+                    items.add(i);
+                }
+                return items;
+            }
+        }, 95, 10, 3, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mPendingTasks.add(command);
+            }
+        });
+        mSubject.setCallback(new PagedList.Callback() {
+            @Override
+            public void onItemRangeLoaded(int position, int count) {
+                mLoadedRanges.add(position + "," + count);
+            }
+        });
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        assertEquals(95, mSubject.size());
+        assertNull(mSubject.get(12));
+        // the page of the item and the previous one, loaded once
+        assertNull(mSubject.get(13));
+        runPendingTasks();
+        assertEquals(Arrays.asList(10, 0), mLoadedPositions);
+        assertEquals(Arrays.asList("10,10", "0,10"), mLoadedRanges);
+        assertEquals(Integer.valueOf(12), mSubject.get(12));
+    }
+
+    @Test
+    public void testGet_lastPage() throws Exception {
+        mSubject.get(94);
+        runPendingTasks();
+        // the previous page too
+        assertEquals(Arrays.asList("90,5", "80,10"), mLoadedRanges);
+        assertEquals(Integer.valueOf(94), mSubject.get(94));
+    }
+
+    @Test
+    public void testEvictFarPages() throws Exception {
+        mSubject.get(5);
+        runPendingTasks();
+        mSubject.get(25);
+        runPendingTasks();
+        mSubject.get(45);
+        runPendingTasks();
+        // the pages 0, 2 and 3, then 4 and 5: the pages 0 and 2 are the farthest
+        assertFalse(mSubject.isLoaded(5));
+        assertFalse(mSubject.isLoaded(25));
+        assertTrue(mSubject.isLoaded(35));
+        assertTrue(mSubject.isLoaded(45));
+    }
+
+    @Test
+    public void testIndexOf_loadedOnly() throws Exception {
+        mSubject.get(5);
+        runPendingTasks();
+        assertEquals(7, mSubject.indexOf(7));
+        assertEquals(-1, mSubject.indexOf(50));
+        Object[] array = mSubject.toArray();
+        assertEquals(95, array.length);
+        assertEquals(7, array[7]);
+        assertNull(array[50]);
+        assertTrue(mPendingTasks.isEmpty());
+    }
+
+    @Test
+    public void testGet_loadFailure() throws Exception {
+        final boolean[] failing = {true};
+        PagedList<Integer> subject = new PagedList<>(new PagedList.DataSource<Integer>() {
+            @Override
+            public List<Integer> loadRange(int position, int count) {
+                if (failing[0]) {
+                    throw new IllegalStateException("offline");
+                }
+                return Arrays.asList(position);
+            }
+        }, 5, 10, 3, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mPendingTasks.add(command);
+            }
+        });
+        assertNull(subject.get(0));
+        runPendingTasks();
+        assertNull(subject.get(0));
+        assertFalse(subject.isLoaded(0));
+
+        // loaded again on the next read
+        failing[0] = false;
+        runPendingTasks();
+        assertEquals(Integer.valueOf(0), subject.get(0));
+    }
+
+    private void runPendingTasks() {
+        List<Runnable> tasks = new ArrayList<>(mPendingTasks);
+        mPendingTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+}
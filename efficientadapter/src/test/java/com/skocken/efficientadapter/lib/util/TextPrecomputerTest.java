@@ -0,0 +1,81 @@
+package com.skocken.efficientadapter.lib.util;
+
+import android.os.Build;
+import android.widget.TextView;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.O_MR1)
+public class TextPrecomputerTest extends TestCase {
+
+    private static final int TEXTVIEW_ID = 1234;
+
+    private static final String TEXT = "Lorem ipsum dolor sit amet, consectetur adipiscing elit.";
+
+    private final List<Runnable> mPendingTasks = new ArrayList<>();
+
+    private TextPrecomputer mSubject;
+
+    private TextView mTextView;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mSubject = new TextPrecomputer(10, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mPendingTasks.add(command);
+            }
+        });
+        mTextView = new TextView(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void testPrecompute_styleUnknown() throws Exception {
+        mSubject.precompute(TEXTVIEW_ID, TEXT);
+        assertTrue(mPendingTasks.isEmpty());
+    }
+
+    @Test
+    public void testPrecompute() throws Exception {
+        assertEquals("title", mSubject.getText(mTextView, TEXTVIEW_ID, "title"));
+        mSubject.precompute(TEXTVIEW_ID, TEXT);
+        mSubject.precompute(TEXTVIEW_ID, new String(TEXT));
+        mSubject.precompute(TEXTVIEW_ID, null);
+        // the same text is only computed once
+        assertEquals(1, mPendingTasks.size());
+        mPendingTasks.remove(0).run();
+        mSubject.precompute(TEXTVIEW_ID, TEXT);
+        assertTrue(mPendingTasks.isEmpty());
+
+        // not for the other text views
+        mSubject.precompute(TEXTVIEW_ID + 1, TEXT);
+        assertTrue(mPendingTasks.isEmpty());
+
+        mSubject.clear();
+        mSubject.precompute(TEXTVIEW_ID, TEXT);
+        assertEquals(1, mPendingTasks.size());
+    }
+
+    @Test
+    public void testGetText_beforePie() throws Exception {
+        mSubject.getText(mTextView, TEXTVIEW_ID, "title");
+        mSubject.precompute(TEXTVIEW_ID, TEXT);
+        mPendingTasks.remove(0).run();
+        // only measured, to fill the cache of the framework
+        assertSame(TEXT, mSubject.getText(mTextView, TEXTVIEW_ID, TEXT));
+    }
+}
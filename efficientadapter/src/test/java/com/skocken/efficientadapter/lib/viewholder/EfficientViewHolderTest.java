@@ -13,6 +13,9 @@ import com.skocken.efficientadapter.lib.util.EfficientCacheView;
 
 import junit.framework.TestCase;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -69,6 +72,24 @@ public class EfficientViewHolderTest extends TestCase {
         assertEquals(1, subject.getNbCallUpdateView());
     }
 
+    @Test
+    public void testOnBindViewWithPayloads() throws Exception {
+
+        int expectedPosition = 12;
+        Object expectedObject = new Object();
+        List<Object> expectedPayloads = Collections.<Object>singletonList("price");
+
+        TestEfficientViewHolder subject = newEfficientViewHolder();
+
+        subject.onBindView(expectedObject, expectedPosition, expectedPayloads);
+
+        assertEquals(expectedPosition, subject.getLastBindPosition());
+        assertEquals(expectedObject, subject.getObject());
+        assertEquals(expectedPayloads, subject.getLastPayloads());
+        // the default implementation forwards to the full update
+        assertEquals(1, subject.getNbCallUpdateView());
+    }
+
     @Test
     public void testForwardToEfficientCacheView() throws Exception {
 
@@ -180,11 +201,24 @@ public class EfficientViewHolderTest extends TestCase {
             super(itemView);
         }
 
+        private List<Object> mLastPayloads;
+
         @Override
         protected void updateView(@NonNull Context context, Object item) {
             mNbCallUpdateView++;
         }
 
+        @Override
+        protected void updateView(@NonNull Context context, Object item,
+                                  @NonNull List payloads) {
+            mLastPayloads = payloads;
+            super.updateView(context, item, payloads);
+        }
+
+        public List<Object> getLastPayloads() {
+            return mLastPayloads;
+        }
+
         public int getNbCallUpdateView() {
             return mNbCallUpdateView;
         }
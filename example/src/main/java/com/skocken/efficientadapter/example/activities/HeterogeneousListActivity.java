@@ -9,6 +9,7 @@ import com.skocken.efficientadapter.example.viewholders.BookViewHolder;
 import com.skocken.efficientadapter.example.viewholders.PlaneViewHolder;
 import com.skocken.efficientadapter.lib.adapter.EfficientAdapter;
 import com.skocken.efficientadapter.lib.adapter.EfficientRecyclerAdapter;
+import com.skocken.efficientadapter.lib.util.TextPrecomputer;
 import com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder;
 
 import android.app.Activity;
@@ -38,6 +39,14 @@ public class HeterogeneousListActivity extends Activity {
         recyclerView.setLayoutManager(linearLayoutManager);
 
         EfficientRecyclerAdapter<Item> adapter = new PlaneBookAdapter(generateListObjects());
+        // the long summaries of the books are measured before they're bound
+        adapter.setTextPrecomputer(new TextPrecomputer(),
+                new TextPrecomputer.TextProvider<Item>() {
+                    @Override
+                    public CharSequence getText(Item item, int viewId) {
+                        return item instanceof Book ? ((Book) item).getSummary() : null;
+                    }
+                }, R.id.summary_textview);
 
         recyclerView.setAdapter(adapter);
 
@@ -17,6 +17,8 @@ import java.util.List;
 
 public class ViewPagerActivity extends Activity {
 
+    private EfficientPagerAdapter<Book> mAdapter;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -29,6 +31,7 @@ public class ViewPagerActivity extends Activity {
                         generateListOfPlane());
 
         viewPager.setAdapter(adapter);
+        mAdapter = adapter;
 
         adapter.setOnItemLongClickListener(
                 new EfficientAdapter.OnItemLongClickListener<Book>() {
@@ -42,6 +45,13 @@ public class ViewPagerActivity extends Activity {
                 });
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // drop the pages kept to be reused
+        mAdapter.onTrimMemory(level);
+    }
+
     private List<Book> generateListOfPlane() {
         List<Book> objects = new ArrayList<>();
         objects.add(new Book("Lorem", "ipsum dolor sit amet",
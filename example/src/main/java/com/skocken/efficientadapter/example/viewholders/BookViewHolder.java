@@ -8,7 +8,9 @@ import androidx.annotation.NonNull;
 import com.skocken.efficientadapter.example.R;
 import com.skocken.efficientadapter.example.models.Book;
 import com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder;
+import com.skocken.efficientadapter.lib.viewholder.ViewHolderLayout;
 
+@ViewHolderLayout(R.layout.item_book)
 public class BookViewHolder extends EfficientViewHolder<Book> {
 
     public BookViewHolder(View itemView) {
@@ -2,22 +2,32 @@ package com.skocken.efficientadapter.example.viewholders;
 
 import com.skocken.efficientadapter.example.R;
 import com.skocken.efficientadapter.example.models.Plane;
+import com.skocken.efficientadapter.lib.viewholder.BindView;
 import com.skocken.efficientadapter.lib.viewholder.EfficientViewHolder;
+import com.skocken.efficientadapter.lib.viewholder.ViewHolderLayout;
 
 import android.content.Context;
 import androidx.annotation.NonNull;
 import android.view.View;
+import android.widget.TextView;
 
+@ViewHolderLayout(R.layout.item_plane)
 public class PlaneViewHolder extends EfficientViewHolder<Plane> {
 
+    @BindView(R.id.manufacturer_textview)
+    TextView mManufacturerTextView;
+
+    @BindView(R.id.model_textview)
+    TextView mModelTextView;
+
     public PlaneViewHolder(View itemView) {
         super(itemView);
     }
 
     @Override
     protected void updateView(@NonNull Context context, Plane item) {
-        setText(R.id.manufacturer_textview, item.getManufacturer());
-        setText(R.id.model_textview, item.getModel());
+        mManufacturerTextView.setText(item.getManufacturer());
+        mModelTextView.setText(item.getModel());
     }
 
     @Override